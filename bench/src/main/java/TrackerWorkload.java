@@ -0,0 +1,74 @@
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+/** Workload over a CSV-backed TrackerService; loaded by name from the benchmarks. */
+public class TrackerWorkload implements hurling.bench.Workload {
+    private Path dir;
+    private TrackerService tracker;
+    private TrainingSession[] byId;
+
+    @Override
+    public void setUp(int rows, long seed, Path dir) {
+        this.dir = dir;
+        new SyntheticData(seed).writeCsv(rows, dir);
+        tracker = new TrackerService(storage(dir));
+        tracker.load();
+        // Kept so a deleted session can be put back as it was.
+        List<TrainingSession> all = tracker.getSessionsPage(0, Integer.MAX_VALUE);
+        byId = new TrainingSession[all.size() + 1];
+        for (TrainingSession s : all) byId[s.id()] = s;
+    }
+
+    private static CsvStorage storage(Path dir) {
+        return new CsvStorage(dir.resolve("sessions.csv").toString(), dir.resolve("drills.csv").toString(),
+            dir.resolve("targets.csv").toString(), true);
+    }
+
+    @Override
+    public int load() {
+        TrackerService fresh = new TrackerService(storage(dir));
+        fresh.load();
+        return fresh.sessionCount();
+    }
+
+    @Override
+    public int loadDrills() {
+        return storage(dir).loadDrills().size();
+    }
+
+    @Override
+    public void save(Path out) {
+        tracker.exportTo(storage(out));
+    }
+
+    @Override
+    public Object weeklyStats(int week) {
+        LocalDate from = SyntheticData.START.plusWeeks(week);
+        return tracker.getWeeklyStats(from, from.plusDays(6));
+    }
+
+    @Override
+    public Object drillsForSession(int sessionId) {
+        return tracker.getDrillsForSession(sessionId);
+    }
+
+    @Override
+    public boolean deleteAndRestore(int sessionId) {
+        List<DrillEntry> drills = tracker.getDrillsForSession(sessionId);
+        boolean removed = tracker.deleteSession(sessionId);
+        tracker.addSession(byId[sessionId]);
+        for (DrillEntry d : drills) tracker.addDrill(d);
+        return removed;
+    }
+
+    @Override
+    public int sessionCount() {
+        return byId.length - 1;
+    }
+
+    @Override
+    public int weeks() {
+        return SyntheticData.SPAN_YEARS * 52;
+    }
+}
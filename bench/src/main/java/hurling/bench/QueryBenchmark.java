@@ -0,0 +1,79 @@
+package hurling.bench;
+
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * In-memory operations on a loaded tracker. Ids and weeks come from a fixed
+ * pseudo-random sequence, so each run asks for the same rows in the same order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class QueryBenchmark {
+    private static final int PICKS = 1 << 12;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private Workload workload;
+    private Path dataDir;
+    private final int[] sessionIds = new int[PICKS];
+    private final int[] weeks = new int[PICKS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataDir = Workloads.tempDir("tracker-bench-data");
+        workload = Workloads.create();
+        workload.setUp(rows, Workloads.SEED, dataDir);
+        SplittableRandom random = new SplittableRandom(Workloads.SEED);
+        for (int i = 0; i < PICKS; i++) {
+            sessionIds[i] = 1 + random.nextInt(workload.sessionCount());
+            weeks[i] = random.nextInt(workload.weeks());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Workloads.delete(dataDir);
+    }
+
+    private int pick() {
+        next = (next + 1) & (PICKS - 1);
+        return next;
+    }
+
+    @Benchmark
+    public Object weeklyStats() {
+        return workload.weeklyStats(weeks[pick()]);
+    }
+
+    @Benchmark
+    public Object drillsForSession() {
+        return workload.drillsForSession(sessionIds[pick()]);
+    }
+
+    /** Includes putting the session back, which costs about the same as an add. */
+    @Benchmark
+    public boolean deleteSession() {
+        return workload.deleteAndRestore(sessionIds[pick()]);
+    }
+}
@@ -0,0 +1,63 @@
+package hurling.bench;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Whole-file load and save through CsvStorage. Rows are sessions plus drills. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class StorageBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private Workload workload;
+    private Path dataDir;
+    private Path saveDir;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataDir = Workloads.tempDir("tracker-bench-data");
+        saveDir = Workloads.tempDir("tracker-bench-save");
+        workload = Workloads.create();
+        workload.setUp(rows, Workloads.SEED, dataDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Workloads.delete(dataDir);
+        Workloads.delete(saveDir);
+    }
+
+    /** CSVs into a ready TrackerService: parsing, tables, index and aggregates. */
+    @Benchmark
+    public int load() {
+        return workload.load();
+    }
+
+    @Benchmark
+    public int loadDrills() {
+        return workload.loadDrills();
+    }
+
+    @Benchmark
+    public void save() {
+        workload.save(saveDir);
+    }
+}
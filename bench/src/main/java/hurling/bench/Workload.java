@@ -0,0 +1,35 @@
+package hurling.bench;
+
+import java.nio.file.Path;
+
+/**
+ * What the benchmarks drive. The tracker's classes live in the unnamed
+ * package, which JMH's generated code can't import, so the implementation
+ * (TrackerWorkload) sits there and the benchmarks only see this interface.
+ */
+public interface Workload {
+    /** Writes {@code rows} rows of synthetic data as CSV into dir and loads a tracker from them. */
+    void setUp(int rows, long seed, Path dir);
+
+    /** Loads a fresh tracker from the CSVs; returns its session count. */
+    int load();
+
+    /** Parses drills.csv only; returns the drill count. */
+    int loadDrills();
+
+    /** Writes every session, drill and the targets as CSV into dir. */
+    void save(Path dir);
+
+    /** Weekly stats for the week starting {@code week} weeks after the data starts. */
+    Object weeklyStats(int week);
+
+    Object drillsForSession(int sessionId);
+
+    /** Deletes the session with its drills, then puts them back so the data set stays the same size. */
+    boolean deleteAndRestore(int sessionId);
+
+    /** Session ids run from 1 to this. */
+    int sessionCount();
+
+    int weeks();
+}
@@ -0,0 +1,138 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/** The Fenwick sums and dayOfNth() against a plain scan of the same rows. */
+class DailyAggregatesTest {
+    private static final int TYPES = SessionType.values().length;
+    private static final int DRILL_TYPES = DrillType.values().length;
+
+    /** A session and the one drill logged against it. */
+    private record Row(long day, int type, int minutes, int intensity, int drillType, int reps, int success) {}
+
+    private final DailyAggregates aggregates = new DailyAggregates();
+    private final Map<Integer, Row> rows = new HashMap<>();
+
+    private void add(int id, Row row) {
+        rows.put(id, row);
+        apply(row, 1);
+    }
+
+    private void remove(int id) {
+        apply(rows.remove(id), -1);
+    }
+
+    private void apply(Row r, int sign) {
+        aggregates.addSession(r.day(), r.type(), r.minutes(), r.intensity(), sign);
+        aggregates.addDrill(r.day(), r.drillType(), r.reps(), r.success(), sign);
+    }
+
+    private long[] scan(long fromDay, long toDay) {
+        long[] out = new long[DailyAggregates.METRICS];
+        for (Row r : rows.values()) {
+            if (r.day() < fromDay || r.day() > toDay) continue;
+            out[DailyAggregates.SESSIONS]++;
+            out[DailyAggregates.MINUTES] += r.minutes();
+            out[DailyAggregates.LOAD] += (long) r.minutes() * r.intensity();
+            out[DailyAggregates.MINUTES_BY_TYPE + r.type()] += r.minutes();
+            out[DailyAggregates.REPS_BY_DRILL + r.drillType()] += r.reps();
+            out[DailyAggregates.SUCCESS_BY_DRILL + r.drillType()] += r.success();
+        }
+        return out;
+    }
+
+    private long scanDayOfNth(long k) {
+        List<Long> days = new ArrayList<>();
+        for (Row r : rows.values()) days.add(r.day());
+        days.sort(null);
+        return k < days.size() ? days.get((int) k) : Long.MIN_VALUE;
+    }
+
+    private void assertMatchesScan(Random random) {
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (Row r : rows.values()) {
+            first = Math.min(first, r.day());
+            last = Math.max(last, r.day());
+        }
+        List<long[]> ranges = new ArrayList<>(List.of(
+            new long[] {first, first}, new long[] {last, last}, new long[] {first, last},
+            new long[] {first - 1000, first}, new long[] {last, last + 1000}, new long[] {first - 1, last + 1}));
+        for (int i = 0; i < 50; i++) {
+            long a = first - 10 + random.nextInt((int) (last - first) + 20);
+            long b = first - 10 + random.nextInt((int) (last - first) + 20);
+            ranges.add(new long[] {Math.min(a, b), Math.max(a, b)});
+        }
+        for (long[] range : ranges) {
+            long[] expected = scan(range[0], range[1]);
+            assertArrayEquals(expected, aggregates.sum(range[0], range[1]), () -> range[0] + ".." + range[1]);
+            assertEquals(expected[DailyAggregates.LOAD], aggregates.sum(range[0], range[1], DailyAggregates.LOAD));
+        }
+        for (long k = 0; k <= rows.size(); k++) {
+            assertEquals(scanDayOfNth(k), aggregates.dayOfNth(DailyAggregates.SESSIONS, k), "k=" + k);
+        }
+    }
+
+    private static Row randomRow(Random random, long day) {
+        return new Row(day, random.nextInt(TYPES), 10 + random.nextInt(90), 1 + random.nextInt(5),
+            random.nextInt(DRILL_TYPES), random.nextInt(200), random.nextInt(100));
+    }
+
+    @Test
+    void sumsAndDayOfNthMatchAScanThroughInsertsDeletesAndMoves() {
+        Random random = new Random(42);
+        long today = 19_850;
+        int nextId = 0;
+        for (int round = 0; round < 6; round++) {
+            // Each round reaches further back and forward, so the arrays resize at both ends.
+            int reach = 30 << round;
+            for (int i = 0; i < 200; i++) {
+                add(nextId++, randomRow(random, today - reach + random.nextInt(2 * reach)));
+            }
+            List<Integer> ids = new ArrayList<>(rows.keySet());
+            for (int i = 0; i < 60; i++) {
+                int id = ids.get(random.nextInt(ids.size()));
+                if (!rows.containsKey(id)) continue;
+                Row old = rows.get(id);
+                remove(id);
+                if (random.nextBoolean()) {
+                    // A date move: out of the old day, into the new one.
+                    long day = today - reach + random.nextInt(2 * reach);
+                    add(id, new Row(day, old.type(), old.minutes(), old.intensity(), old.drillType(), old.reps(), old.success()));
+                }
+            }
+            // Alternate between bulk updates and updates made to an already built tree.
+            if (round % 2 == 0) aggregates.refresh();
+            for (int i = 0; i < 20; i++) {
+                add(nextId++, randomRow(random, today - reach + random.nextInt(2 * reach)));
+            }
+            aggregates.refresh();
+            assertMatchesScan(random);
+        }
+    }
+
+    @Test
+    void emptiedDaysAtTheEdgesStillAnswerCorrectly() {
+        Random random = new Random(7);
+        add(1, randomRow(random, 20_000));
+        add(2, randomRow(random, 20_000));
+        add(3, randomRow(random, 20_100));
+        add(4, randomRow(random, 20_200));
+        aggregates.refresh();
+        assertMatchesScan(random);
+
+        remove(4);
+        remove(1);
+        assertMatchesScan(random);
+        assertEquals(20_000, aggregates.dayOfNth(DailyAggregates.SESSIONS, 0));
+        assertEquals(20_100, aggregates.dayOfNth(DailyAggregates.SESSIONS, 1));
+        assertEquals(Long.MIN_VALUE, aggregates.dayOfNth(DailyAggregates.SESSIONS, 2));
+    }
+}
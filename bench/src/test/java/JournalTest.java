@@ -0,0 +1,196 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Crash recovery of the CSV journal: what a load sees after a write was cut short. */
+class JournalTest {
+    @TempDir
+    Path dir;
+
+    private TrackerService open() {
+        TrackerService tracker = new TrackerService(
+            new CsvStorage(dir.resolve("sessions.csv").toString(), dir.resolve("drills.csv").toString(),
+                dir.resolve("targets.csv").toString()),
+            new Journal(dir.resolve("journal.log").toString()));
+        tracker.load();
+        return tracker;
+    }
+
+    private static TrainingSession session(int id, String date) {
+        return TrainingSession.create(id, LocalDate.parse(date), SessionType.FIELD, 60, 3, "");
+    }
+
+    private void crashWhileWriting(String partial) throws IOException {
+        Files.writeString(dir.resolve("journal.log"), partial, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    @Test
+    void tornLastRecordIsDroppedAndLaterAppendsSurvive() throws IOException {
+        TrackerService tracker = open();
+        tracker.addSession(session(1, "2024-05-01"));
+        tracker.close();
+        crashWhileWriting("S,2,2024-05-0");
+
+        tracker = open();
+        assertEquals(1, tracker.sessionCount());
+        tracker.addSession(session(2, "2024-05-03"));
+        tracker.addSession(session(3, "2024-05-04"));
+        tracker.close();
+
+        tracker = open();
+        assertEquals(3, tracker.sessionCount());
+        assertEquals(LocalDate.parse("2024-05-03"), tracker.getSessionsBetween(LocalDate.parse("2024-05-03"), LocalDate.parse("2024-05-03")).get(0).date());
+        tracker.close();
+    }
+
+    @Test
+    void tornQuotedNoteIsDropped() throws IOException {
+        TrackerService tracker = open();
+        tracker.addSession(session(1, "2024-05-01"));
+        tracker.close();
+        crashWhileWriting("S,2,2024-05-02,FIELD,60,3,\"wet, then\n");
+
+        tracker = open();
+        assertEquals(1, tracker.sessionCount());
+        tracker.addSession(session(2, "2024-05-02"));
+        tracker.close();
+
+        assertEquals(2, open().sessionCount());
+    }
+
+    @Test
+    void batchCutOffByCrashDoesNotSwallowLaterAppends() throws IOException {
+        TrackerService tracker = open();
+        tracker.addSession(session(1, "2024-05-01"));
+        tracker.close();
+        crashWhileWriting("B\nS,2,2024-05-02,FIELD,60,3,\n");
+
+        tracker = open();
+        assertEquals(1, tracker.sessionCount());
+        tracker.addSession(session(3, "2024-05-03"));
+        tracker.close();
+
+        tracker = open();
+        assertEquals(2, tracker.sessionCount());
+        assertEquals(LocalDate.parse("2024-05-03"), tracker.lastSessionDate().orElseThrow());
+        tracker.close();
+    }
+
+    @Test
+    void storedSessionsOutsideTheInputWindowStillLoad() throws IOException {
+        Files.writeString(dir.resolve("sessions.csv"),
+            "1,1998-06-01,FIELD,60,3,\n2,2024-05-01,FIELD,60,3,\n3,0202-05-01,FIELD,60,3,\n");
+        Files.writeString(dir.resolve("journal.log"), "S,4,1999-01-01,FIELD,45,2,\n");
+
+        TrackerService tracker = open();
+        assertEquals(3, tracker.sessionCount());
+        assertEquals(1, tracker.getSessionsBetween(LocalDate.parse("1998-06-01"), LocalDate.parse("1998-06-01")).size());
+        assertThrows(IllegalArgumentException.class, () -> tracker.addSession(session(5, "1998-06-02")));
+        tracker.close();
+    }
+
+    @Test
+    void wholeRecordTheHandlerRejectsIsNotCutOff() throws IOException {
+        TrackerService tracker = open();
+        tracker.addSession(session(1, "2024-05-01"));
+        tracker.close();
+        String bad = "S,2,2024-05-02,NOT_A_TYPE,60,3,\n";
+        crashWhileWriting(bad);
+
+        assertThrows(RuntimeException.class, this::open);
+        assertTrue(Files.readString(dir.resolve("journal.log")).endsWith(bad));
+    }
+
+    @Test
+    void importGoesStraightToStorageNotTheJournal() throws IOException {
+        TrackerService tracker = open();
+        tracker.addSession(session(1, "2024-05-01"));
+        List<TrainingSession> season = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            season.add(session(100 + i, LocalDate.parse("2023-01-01").plusDays(i % 300).toString()));
+        }
+        tracker.importRenumbered(season, List.of());
+
+        Path journal = dir.resolve("journal.log");
+        assertTrue(!Files.exists(journal) || Files.size(journal) == 0);
+        assertEquals(1001, Files.readAllLines(dir.resolve("sessions.csv")).size());
+        tracker.close();
+
+        assertEquals(1001, open().sessionCount());
+    }
+
+    @Test
+    void rejectedBatchLeavesStateAndJournalUntouched() throws IOException {
+        TrackerService tracker = open();
+        tracker.addSession(session(1, "2024-05-01"));
+        tracker.flush();
+        byte[] journal = Files.readAllBytes(dir.resolve("journal.log"));
+
+        TrackerService.Batch batch = tracker.batch()
+            .addSession(session(2, "2024-05-02"))
+            .updateSession(TrainingSession.create(1, LocalDate.parse("2024-05-03"), SessionType.GYM, 90, 4, ""))
+            .addDrill(DrillEntry.create(10, 99, DrillType.WALL_BALL, 50, 40, ""));
+        TrackerService.RejectedChange rejected = assertThrows(TrackerService.RejectedChange.class, batch::commit);
+        assertEquals(2, rejected.index());
+
+        assertEquals(1, tracker.sessionCount());
+        assertEquals(60, tracker.getWeeklyStats(LocalDate.parse("2024-05-01"), LocalDate.parse("2024-05-07")).totalMinutes());
+        assertEquals(LocalDate.parse("2024-05-01"), tracker.lastSessionDate().orElseThrow());
+        tracker.flush();
+        assertArrayEquals(journal, Files.readAllBytes(dir.resolve("journal.log")));
+        tracker.close();
+
+        assertEquals(1, open().sessionCount());
+    }
+
+    @Test
+    void batchFailingPartWayIsUndone() {
+        Journal failingOnDrills = new Journal(dir.resolve("journal.log").toString()) {
+            @Override
+            public synchronized void append(char op, Consumer<CsvWriter> payload) {
+                if (op == DRILL) throw new RuntimeException("disk full");
+                super.append(op, payload);
+            }
+        };
+        TrackerService tracker = new TrackerService(
+            new CsvStorage(dir.resolve("sessions.csv").toString(), dir.resolve("drills.csv").toString(),
+                dir.resolve("targets.csv").toString()),
+            failingOnDrills);
+        tracker.load();
+        tracker.addSession(session(1, "2024-05-01"));
+
+        TrackerService.Batch batch = tracker.batch()
+            .updateSession(TrainingSession.create(1, LocalDate.parse("2024-05-03"), SessionType.GYM, 90, 4, ""))
+            .addSession(session(2, "2024-05-02"))
+            .addDrill(DrillEntry.create(10, 2, DrillType.WALL_BALL, 50, 40, ""));
+        RuntimeException failed = assertThrows(RuntimeException.class, batch::commit);
+        assertEquals("disk full", failed.getMessage());
+
+        assertEquals(1, tracker.sessionCount());
+        assertTrue(tracker.getDrillsForSession(2).isEmpty());
+        assertEquals(LocalDate.parse("2024-05-01"), tracker.lastSessionDate().orElseThrow());
+        TrackerService.WeeklyStats week = tracker.getWeeklyStats(LocalDate.parse("2024-05-01"), LocalDate.parse("2024-05-07"));
+        assertEquals(1, week.sessionCount());
+        assertEquals(60, week.totalMinutes());
+        tracker.close();
+
+        tracker = open();
+        assertEquals(1, tracker.sessionCount());
+        assertEquals(LocalDate.parse("2024-05-01"), tracker.lastSessionDate().orElseThrow());
+        tracker.close();
+    }
+}
@@ -0,0 +1,130 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Notes search: kept in step with edits and deletes, and prefix and AND queries against a scan. */
+class NotesIndexTest {
+    private static final String[] COMMON = {"wet", "pitch", "sore", "left", "ham", "hamstring", "hamstrings", "hamper"};
+    // Rare enough that "kick*" is the clause a search walks, merging three lists.
+    private static final String[] RARE = {"kick", "kicks", "kicked"};
+
+    @TempDir
+    Path dir;
+
+    private TrackerService open() {
+        TrackerService tracker = new TrackerService(
+            new CsvStorage(dir.resolve("sessions.csv").toString(), dir.resolve("drills.csv").toString(),
+                dir.resolve("targets.csv").toString()),
+            new Journal(dir.resolve("journal.log").toString()));
+        tracker.load();
+        return tracker;
+    }
+
+    /** Session ids, and drill ids negated. */
+    private static List<Integer> matchIds(List<TrackerService.NoteMatch> matches) {
+        List<Integer> ids = new ArrayList<>();
+        for (TrackerService.NoteMatch m : matches) ids.add(m.drill() == null ? m.session().id() : -m.drill().id());
+        return ids;
+    }
+
+    @Test
+    void editsAndDeletesReachTheIndex() {
+        TrackerService tracker = open();
+        LocalDate day = LocalDate.parse("2024-05-01");
+        tracker.addSession(TrainingSession.create(1, day, SessionType.FIELD, 60, 3, "tight hamstring"));
+        tracker.addSession(TrainingSession.create(2, day.plusDays(1), SessionType.FIELD, 60, 3, "wet pitch"));
+        tracker.addDrill(DrillEntry.create(10, 2, DrillType.WALL_BALL, 100, 80, "left hand hamstring twinge"));
+        assertEquals(List.of(-10, 1), matchIds(tracker.searchNotes("hamstring", 10)));
+
+        tracker.updateSession(TrainingSession.create(1, day, SessionType.FIELD, 60, 3, "calf cramp"));
+        assertEquals(List.of(-10), matchIds(tracker.searchNotes("hamstring", 10)));
+        assertEquals(List.of(1), matchIds(tracker.searchNotes("calf", 10)));
+
+        tracker.deleteSession(2);
+        assertTrue(tracker.searchNotes("hamstring", 10).isEmpty());
+        assertTrue(tracker.searchNotes("twinge", 10).isEmpty());
+        assertTrue(tracker.searchNotes("wet", 10).isEmpty());
+        tracker.close();
+
+        // The same after a reload, which indexes in bulk.
+        tracker = open();
+        assertTrue(tracker.searchNotes("hamstring", 10).isEmpty());
+        assertEquals(List.of(1), matchIds(tracker.searchNotes("cramp", 10)));
+        tracker.close();
+    }
+
+    @Test
+    void prefixAndMultiWordQueriesMatchAScan() {
+        Random random = new Random(3);
+        NotesIndex index = new NotesIndex();
+        Map<Long, String> notes = new HashMap<>();
+        for (int id = 0; id < 600; id++) {
+            long key = NotesIndex.key(19_000 + random.nextInt(400), random.nextBoolean(), id);
+            String text = randomNotes(random);
+            notes.put(key, text);
+            index.add(key, text);
+        }
+        index.refresh();
+
+        // Edits and removes after the bulk load go through the sorted path.
+        List<Long> keys = new ArrayList<>(notes.keySet());
+        for (int i = 0; i < 200; i++) {
+            long key = keys.get(random.nextInt(keys.size()));
+            String old = notes.remove(key);
+            if (old == null) continue;
+            index.remove(key, old);
+            if (random.nextBoolean()) {
+                String text = randomNotes(random);
+                notes.put(key, text);
+                index.add(key, text);
+            }
+        }
+
+        for (String query : List.of("kick*", "kick* wet", "ham*", "hamstr*", "hamstr* sore left", "wet pitch", "sore ham*", "kicks")) {
+            for (int limit : new int[] {1, 5, 1000}) {
+                assertArrayEquals(scan(notes, query, limit), index.search(query, limit), query + " limit " + limit);
+            }
+        }
+    }
+
+    private static String randomNotes(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int words = 1 + random.nextInt(5);
+        for (int i = 0; i < words; i++) {
+            String word = random.nextInt(20) == 0 ? RARE[random.nextInt(RARE.length)] : COMMON[random.nextInt(COMMON.length)];
+            sb.append(i == 0 ? "" : random.nextBoolean() ? " " : ", ").append(random.nextBoolean() ? word : word.toUpperCase());
+        }
+        return sb.toString();
+    }
+
+    private static long[] scan(Map<Long, String> notes, String query, int limit) {
+        List<Long> hits = new ArrayList<>();
+        for (Map.Entry<Long, String> e : notes.entrySet()) {
+            if (matches(NotesIndex.words(e.getValue()), query)) hits.add(e.getKey());
+        }
+        hits.sort((a, b) -> Long.compare(b, a));
+        return hits.stream().limit(limit).mapToLong(Long::longValue).toArray();
+    }
+
+    private static boolean matches(List<String> words, String query) {
+        for (String part : query.split(" ")) {
+            boolean prefix = part.endsWith("*");
+            String stem = prefix ? part.substring(0, part.length() - 1) : part;
+            boolean any = false;
+            for (String w : words) any |= prefix ? w.startsWith(stem) : w.equals(stem);
+            if (!any) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,226 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs tracker commands from a script or stdin, without the menu, e.g. from cron:
+ *
+ *   add-session --date 2024-05-01 --type FIELD --minutes 60 --intensity 3 --notes "first touch work"
+ *   add-drill --session last --type WALL_BALL --reps 200 --success 170
+ *   delete-session --id 12
+ *   set-targets --sessions 5 --wall-ball 1500 --gym 120
+ *   checkpoint
+ *   report --from 2024-04-25 --to 2024-05-01
+ *   metrics
+ *   search --query "hamstr* left" --limit 20
+ *
+ * One command per line; blank lines and lines starting with # are skipped.
+ * Changes are staged in a TrackerService.Batch and committed together at a
+ * checkpoint: every checkpointEvery changes if that is set, at an explicit
+ * "checkpoint", before a report or search so it sees them, and at the end. Each commit is
+ * atomic, so a bad command stops the run and drops the changes since the last
+ * checkpoint; earlier checkpoints stay saved.
+ */
+public class BatchRunner {
+    private final TrackerService tracker;
+    private final int checkpointEvery;
+    private final PrintStream out;
+
+    private TrackerService.Batch pending;
+    // Script line of each staged change, to report a rejected commit against its line.
+    private final List<Long> pendingLines = new ArrayList<>();
+    private int lastSessionId = -1;
+    private int applied;
+
+    /** checkpointEvery 0 commits only at explicit checkpoints, reports and the end. */
+    public BatchRunner(TrackerService tracker, int checkpointEvery, PrintStream out) {
+        this.tracker = tracker;
+        this.checkpointEvery = checkpointEvery;
+        this.out = out;
+    }
+
+    /** Signals a bad command; the runner stops at it. */
+    public static final class ScriptError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ScriptError(long line, String message) {
+            super("line " + line + ": " + message);
+        }
+    }
+
+    /** Runs the script to the end, or throws ScriptError at the first bad command. Returns the changes applied. */
+    public int run(BufferedReader script) {
+        long lineNo = 0;
+        try {
+            String line;
+            while ((line = script.readLine()) != null) {
+                lineNo++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+                try {
+                    execute(tokenize(trimmed), lineNo);
+                } catch (ScriptError e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    throw new ScriptError(lineNo, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading script: " + e.getMessage(), e);
+        }
+        checkpoint();
+        return applied;
+    }
+
+    private void execute(List<String> words, long lineNo) {
+        String command = words.get(0);
+        Map<String, String> opts = options(words);
+        switch (command) {
+            case "add-session" -> {
+                TrainingSession session = TrainingSession.create(tracker.nextSessionId(),
+                    LocalDate.parse(required(opts, "date")),
+                    SessionType.valueOf(required(opts, "type").toUpperCase()),
+                    Integer.parseInt(required(opts, "minutes")),
+                    Integer.parseInt(required(opts, "intensity")),
+                    opts.getOrDefault("notes", ""));
+                stage(lineNo).addSession(session);
+                lastSessionId = session.id();
+                out.println("session " + session.id());
+            }
+            case "add-drill" -> {
+                String sessionOpt = required(opts, "session");
+                int sessionId = sessionOpt.equals("last") ? lastSessionId : Integer.parseInt(sessionOpt);
+                if (sessionId < 0) throw new IllegalArgumentException("no session added yet for --session last");
+                DrillEntry drill = DrillEntry.create(tracker.nextDrillId(), sessionId,
+                    DrillType.valueOf(required(opts, "type").toUpperCase()),
+                    Integer.parseInt(required(opts, "reps")),
+                    Integer.parseInt(opts.getOrDefault("success", "0")),
+                    opts.getOrDefault("notes", ""));
+                stage(lineNo).addDrill(drill);
+                out.println("drill " + drill.id());
+            }
+            case "delete-session" -> stage(lineNo).deleteSession(Integer.parseInt(required(opts, "id")));
+            case "set-targets" -> {
+                Targets cur = tracker.getTargets();
+                stage(lineNo).setTargets(new Targets(
+                    Integer.parseInt(opts.getOrDefault("sessions", Integer.toString(cur.sessionsPerWeek()))),
+                    Integer.parseInt(opts.getOrDefault("wall-ball", Integer.toString(cur.wallBallRepsPerWeek()))),
+                    Integer.parseInt(opts.getOrDefault("gym", Integer.toString(cur.gymMinutesPerWeek())))));
+            }
+            case "checkpoint" -> checkpoint();
+            case "metrics" -> out.print(Metrics.report());
+            case "search" -> {
+                checkpoint();
+                int limit = Integer.parseInt(opts.getOrDefault("limit", "20"));
+                for (TrackerService.NoteMatch m : tracker.searchNotes(required(opts, "query"), limit)) {
+                    out.println(m.neatOneLine());
+                }
+            }
+            case "report" -> {
+                checkpoint();
+                LocalDate to = opts.containsKey("to") ? LocalDate.parse(opts.get("to")) : LocalDate.now();
+                LocalDate from = opts.containsKey("from") ? LocalDate.parse(opts.get("from")) : to.minusDays(6);
+                if (from.isAfter(to)) throw new IllegalArgumentException("--from is after --to");
+                report(from, to);
+            }
+            default -> throw new IllegalArgumentException("unknown command " + command);
+        }
+        if (checkpointEvery > 0 && pendingLines.size() >= checkpointEvery) checkpoint();
+    }
+
+    private TrackerService.Batch stage(long lineNo) {
+        if (pending == null) pending = tracker.batch();
+        pendingLines.add(lineNo);
+        return pending;
+    }
+
+    /** Commits the staged changes as one unit and waits for them to be written. */
+    private void checkpoint() {
+        if (pending == null) return;
+        TrackerService.Batch batch = pending;
+        List<Long> lines = new ArrayList<>(pendingLines);
+        pending = null;
+        pendingLines.clear();
+        try {
+            batch.commit();
+        } catch (TrackerService.RejectedChange e) {
+            throw new ScriptError(lines.get(e.index()), e.getMessage());
+        }
+        tracker.flush();
+        applied += lines.size();
+    }
+
+    private void report(LocalDate from, LocalDate to) {
+        TrackerService.WeeklyStats stats = tracker.getWeeklyStats(from, to);
+        out.println("REPORT " + from + " to " + to);
+        out.println("Sessions: " + stats.sessionCount());
+        out.println("Minutes:  " + stats.totalMinutes());
+        out.println("Load:     " + stats.trainingLoad());
+        SessionType[] sessionTypes = SessionType.values();
+        for (int i = 0; i < sessionTypes.length; i++) {
+            if (stats.minutesByType()[i] > 0) out.println("- " + sessionTypes[i] + " minutes: " + stats.minutesByType()[i]);
+        }
+        DrillType[] drillTypes = DrillType.values();
+        for (int i = 0; i < drillTypes.length; i++) {
+            if (stats.repsByDrill()[i] > 0) {
+                out.println("- " + drillTypes[i] + " reps: " + stats.repsByDrill()[i] + ", success " + stats.successByDrill()[i]);
+            }
+        }
+    }
+
+    /** --name value pairs after the command word. */
+    private static Map<String, String> options(List<String> words) {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 1; i < words.size(); i += 2) {
+            String name = words.get(i);
+            if (!name.startsWith("--")) throw new IllegalArgumentException("expected an --option, got " + name);
+            if (i + 1 >= words.size()) throw new IllegalArgumentException("missing value for " + name);
+            opts.put(name.substring(2), words.get(i + 1));
+        }
+        return opts;
+    }
+
+    private static String required(Map<String, String> opts, String name) {
+        String value = opts.get(name);
+        if (value == null) throw new IllegalArgumentException("missing --" + name);
+        return value;
+    }
+
+    /** Splits on spaces; "double quotes" group words, with \" and \\ inside them. */
+    static List<String> tokenize(String line) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean inWord = false;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    quoted = false;
+                } else if (c == '\\' && i + 1 < line.length() && (line.charAt(i + 1) == '"' || line.charAt(i + 1) == '\\')) {
+                    word.append(line.charAt(++i));
+                } else {
+                    word.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                inWord = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inWord) words.add(word.toString());
+                word.setLength(0);
+                inWord = false;
+            } else {
+                word.append(c);
+                inWord = true;
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("unclosed quote");
+        if (inWord) words.add(word.toString());
+        return words;
+    }
+}
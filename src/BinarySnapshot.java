@@ -0,0 +1,222 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary copy of the CSV data used to start up without parsing text.
+ *
+ * Layout: header (magic, version, counts, targets), then three sections of
+ * checksummed blocks: the notes string table, fixed-width session records and
+ * fixed-width drill records. Each block is [recordCount][byteLength][bytes][crc32].
+ * Notes are stored once in the string table and referenced by index (-1 = none).
+ */
+public class BinarySnapshot {
+    private static final int MAGIC = 0x48545331; // "HTS1"
+    private static final int VERSION = 1;
+    private static final int RECORDS_PER_BLOCK = 4096;
+    // id, epochDay, type, minutes, intensity, note
+    private static final int SESSION_BYTES = 4 + 4 + 1 + 4 + 4 + 4;
+    // id, sessionId, type, reps, success, note
+    private static final int DRILL_BYTES = 4 + 4 + 1 + 4 + 4 + 4;
+
+    private static final SessionType[] SESSION_TYPES = SessionType.values();
+    private static final DrillType[] DRILL_TYPES = DrillType.values();
+
+    private final Path path;
+
+    public BinarySnapshot(String file) {
+        this.path = Paths.get(file);
+    }
+
+    public record Contents(List<TrainingSession> sessions, List<DrillEntry> drills, Targets targets) {}
+
+    /**
+     * Reads the snapshot if it exists and was written no earlier than the given
+     * CSV modification time. Returns null when the CSVs should be used instead.
+     */
+    public Contents readIfNewerThan(long csvLastModified) {
+        try {
+            if (!Files.exists(path)) return null;
+            if (Files.getLastModifiedTime(path).toMillis() < csvLastModified) return null;
+            return read();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring snapshot " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Contents read() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("not a snapshot file");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("unsupported snapshot version " + version);
+
+            int stringCount = in.readInt();
+            int sessionCount = in.readInt();
+            int drillCount = in.readInt();
+            Targets targets = new Targets(in.readInt(), in.readInt(), in.readInt());
+
+            String[] strings = new String[stringCount];
+            int read = 0;
+            while (read < stringCount) {
+                ByteBuffer block = readBlock(in);
+                int n = block.getInt(0);
+                block.position(4);
+                for (int i = 0; i < n; i++) {
+                    byte[] utf8 = new byte[block.getInt()];
+                    block.get(utf8);
+                    strings[read++] = new String(utf8, StandardCharsets.UTF_8);
+                }
+            }
+
+            List<TrainingSession> sessions = new ArrayList<>(sessionCount);
+            while (sessions.size() < sessionCount) {
+                ByteBuffer block = readBlock(in);
+                int n = block.getInt(0);
+                checkWidth(block, n, SESSION_BYTES);
+                block.position(4);
+                for (int i = 0; i < n; i++) {
+                    int id = block.getInt();
+                    int day = block.getInt();
+                    SessionType type = SESSION_TYPES[block.get()];
+                    int minutes = block.getInt();
+                    int intensity = block.getInt();
+                    int note = block.getInt();
+                    sessions.add(new TrainingSession(id, LocalDate.ofEpochDay(day), type, minutes, intensity,
+                        note < 0 ? "" : strings[note]));
+                }
+            }
+
+            List<DrillEntry> drills = new ArrayList<>(drillCount);
+            while (drills.size() < drillCount) {
+                ByteBuffer block = readBlock(in);
+                int n = block.getInt(0);
+                checkWidth(block, n, DRILL_BYTES);
+                block.position(4);
+                for (int i = 0; i < n; i++) {
+                    int id = block.getInt();
+                    int sessionId = block.getInt();
+                    DrillType type = DRILL_TYPES[block.get()];
+                    int reps = block.getInt();
+                    int success = block.getInt();
+                    int note = block.getInt();
+                    drills.add(new DrillEntry(id, sessionId, type, reps, success, note < 0 ? "" : strings[note]));
+                }
+            }
+            return new Contents(sessions, drills, targets);
+        }
+    }
+
+    private static void checkWidth(ByteBuffer block, int count, int recordBytes) throws IOException {
+        if (block.capacity() - 4 != count * recordBytes) throw new IOException("bad record block length");
+    }
+
+    /** Returns the block bytes prefixed by their record count, after checking the CRC. */
+    private static ByteBuffer readBlock(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        int length = in.readInt();
+        if (count <= 0 || length < 0) throw new IOException("bad snapshot block header");
+        byte[] bytes = new byte[4 + length];
+        ByteBuffer.wrap(bytes).putInt(count);
+        in.readFully(bytes, 4, length);
+        long expected = in.readLong();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 4, length);
+        if (crc.getValue() != expected) throw new IOException("checksum mismatch in snapshot block");
+        return ByteBuffer.wrap(bytes);
+    }
+
+    public void write(List<TrainingSession> sessions, List<DrillEntry> drills, Targets targets) {
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (TrainingSession s : sessions) intern(s.notes(), stringIds, strings);
+        for (DrillEntry d : drills) intern(d.notes(), stringIds, strings);
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(strings.size());
+            out.writeInt(sessions.size());
+            out.writeInt(drills.size());
+            out.writeInt(targets.sessionsPerWeek());
+            out.writeInt(targets.wallBallRepsPerWeek());
+            out.writeInt(targets.gymMinutesPerWeek());
+
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            DataOutputStream b = new DataOutputStream(block);
+            for (int start = 0; start < strings.size(); start += RECORDS_PER_BLOCK) {
+                int end = Math.min(strings.size(), start + RECORDS_PER_BLOCK);
+                block.reset();
+                for (int i = start; i < end; i++) {
+                    byte[] utf8 = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                    b.writeInt(utf8.length);
+                    b.write(utf8);
+                }
+                writeBlock(out, end - start, block);
+            }
+
+            for (int start = 0; start < sessions.size(); start += RECORDS_PER_BLOCK) {
+                int end = Math.min(sessions.size(), start + RECORDS_PER_BLOCK);
+                block.reset();
+                for (int i = start; i < end; i++) {
+                    TrainingSession s = sessions.get(i);
+                    b.writeInt(s.id());
+                    b.writeInt((int) s.date().toEpochDay());
+                    b.writeByte(s.type().ordinal());
+                    b.writeInt(s.minutes());
+                    b.writeInt(s.intensity());
+                    b.writeInt(stringIds.getOrDefault(s.notes(), -1));
+                }
+                writeBlock(out, end - start, block);
+            }
+
+            for (int start = 0; start < drills.size(); start += RECORDS_PER_BLOCK) {
+                int end = Math.min(drills.size(), start + RECORDS_PER_BLOCK);
+                block.reset();
+                for (int i = start; i < end; i++) {
+                    DrillEntry d = drills.get(i);
+                    b.writeInt(d.id());
+                    b.writeInt(d.sessionId());
+                    b.writeByte(d.drillType().ordinal());
+                    b.writeInt(d.reps());
+                    b.writeInt(d.success());
+                    b.writeInt(stringIds.getOrDefault(d.notes(), -1));
+                }
+                writeBlock(out, end - start, block);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing to " + tmp + ": " + e.getMessage(), e);
+        }
+
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed replacing " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void intern(String note, Map<String, Integer> ids, List<String> strings) {
+        if (note.isEmpty() || ids.containsKey(note)) return;
+        ids.put(note, strings.size());
+        strings.add(note);
+    }
+
+    private static void writeBlock(DataOutputStream out, int count, ByteArrayOutputStream block) throws IOException {
+        byte[] bytes = block.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        out.writeInt(count);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.writeLong(crc.getValue());
+    }
+}
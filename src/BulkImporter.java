@@ -0,0 +1,255 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Imports a past season from an export file in one pass.
+ *
+ * Formats, picked by extension:
+ *   .csv               journal-style rows: S,id,date,type,minutes,intensity,notes
+ *                      and D,id,sessionId,drillType,reps,success,notes (a drill after its session)
+ *   .ndjson / .jsonl   one session per line, with its drills nested:
+ *                      {"id":7,"date":"2023-03-01","type":"FIELD","minutes":60,"intensity":3,
+ *                       "drills":[{"drillType":"WALL_BALL","reps":100,"success":80}]}
+ *
+ * A parser thread reads the file in batches and hands them over a small
+ * bounded queue, so it can't run ahead of the importer by more than a few
+ * batches. The importer validates each row, collecting bad rows (with their
+ * line numbers) rather than stopping at the first. All good rows go into the
+ * tracker in one importRenumbered(), which gives them fresh ids, and are saved
+ * once.
+ */
+public class BulkImporter {
+    private static final int BATCH_ROWS = 1000;
+    private static final int QUEUE_BATCHES = 4;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final SessionType[] SESSION_TYPES = SessionType.values();
+    private static final DrillType[] DRILL_TYPES = DrillType.values();
+
+    private final TrackerService tracker;
+
+    public BulkImporter(TrackerService tracker) {
+        this.tracker = tracker;
+    }
+
+    public record Report(int sessions, int drills, int badRows, List<String> errors, long millis) {
+        /** Rows imported per second; bad rows are skipped, so they don't count. */
+        public double rowsPerSecond() {
+            return (sessions + drills) * 1000.0 / Math.max(1, millis);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Imported %d sessions and %d drills, %d bad rows, in %d ms (%.0f rows/s)",
+                sessions, drills, badRows, millis, rowsPerSecond());
+        }
+    }
+
+    /** A parsed row before validation; ids are still the file's. Exactly one of session/drill is set, or error. */
+    private record Row(long line, TrainingSession session, DrillEntry drill, String error) {}
+
+    private static final List<Row> END = new ArrayList<>();
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java BulkImporter <file.csv|file.ndjson> [dataDir]");
+            return;
+        }
+        TrackerService tracker = TrackerFactory.open(Paths.get(args.length > 1 ? args[1] : ""));
+        try {
+            Report report = new BulkImporter(tracker).importFile(Paths.get(args[0]));
+            report.errors().forEach(e -> System.out.println("  " + e));
+            System.out.println(report);
+        } finally {
+            // Waits for a journal compaction still running, which a daemon thread would lose at exit.
+            tracker.close();
+        }
+    }
+
+    public Report importFile(Path file) {
+        long start = System.nanoTime();
+        String name = file.getFileName().toString().toLowerCase();
+        boolean ndjson = name.endsWith(".ndjson") || name.endsWith(".jsonl");
+
+        BlockingQueue<List<Row>> queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+        RuntimeException[] parseFailure = new RuntimeException[1];
+        Thread parser = new Thread(() -> {
+            try {
+                if (ndjson) parseNdjson(file, queue);
+                else parseCsv(file, queue);
+            } catch (RuntimeException e) {
+                parseFailure[0] = e;
+            } finally {
+                try {
+                    queue.put(END);
+                } catch (InterruptedException e) {
+                    // The importer gave up and interrupted us; nobody is waiting for the end marker.
+                }
+            }
+        }, "import-parser");
+        parser.setDaemon(true);
+        parser.start();
+
+        List<TrainingSession> sessions = new ArrayList<>();
+        List<DrillEntry> drills = new ArrayList<>();
+        Set<Integer> sessionIds = new HashSet<>();
+        List<String> errors = new ArrayList<>();
+        int badRows = 0;
+
+        try {
+            for (List<Row> batch = queue.take(); batch != END; batch = queue.take()) {
+                for (Row row : batch) {
+                    String error = row.error() != null ? row.error()
+                        : row.session() != null ? accept(row.session(), sessions, sessionIds)
+                        : accept(row.drill(), drills, sessionIds);
+                    if (error == null) continue;
+                    badRows++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) errors.add("line " + row.line() + ": " + error);
+                }
+            }
+            parser.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            parser.interrupt();
+            throw new RuntimeException("Import of " + file + " interrupted", e);
+        }
+        if (parseFailure[0] != null) throw parseFailure[0];
+        if (badRows > errors.size()) errors.add("... and " + (badRows - errors.size()) + " more");
+
+        tracker.importRenumbered(sessions, drills);
+        tracker.save();
+        return new Report(sessions.size(), drills.size(), badRows, errors, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Validates a session, still under its file id; returns an error message or null if it was taken. */
+    private static String accept(TrainingSession s, List<TrainingSession> out, Set<Integer> sessionIds) {
+        String date = TrackerService.checkDate(s.date());
+        if (date != null) return date;
+        if (s.intensity() < 1 || s.intensity() > 5) return "intensity must be 1-5";
+        if (s.minutes() < 0) return "minutes must not be negative";
+        if (!sessionIds.add(s.id())) return "duplicate session id " + s.id();
+        out.add(s);
+        return null;
+    }
+
+    private static String accept(DrillEntry d, List<DrillEntry> out, Set<Integer> sessionIds) {
+        if (d.reps() < 0 || d.success() < 0) return "reps and success must not be negative";
+        if (!sessionIds.contains(d.sessionId())) return "drill refers to unknown session " + d.sessionId();
+        out.add(d);
+        return null;
+    }
+
+    private static void parseCsv(Path file, BlockingQueue<List<Row>> queue) {
+        try (BufferedReader br = Files.newBufferedReader(file)) {
+            CsvReader r = new CsvReader(br);
+            List<Row> batch = new ArrayList<>(BATCH_ROWS);
+            long record = 0;
+            while (r.next()) {
+                record++;
+                batch.add(parseCsvRow(r, record));
+                if (batch.size() == BATCH_ROWS) {
+                    put(queue, batch);
+                    batch = new ArrayList<>(BATCH_ROWS);
+                }
+            }
+            if (!batch.isEmpty()) put(queue, batch);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /** CSV rows are numbered by record; a note with a line break makes that differ from the file line. */
+    private static Row parseCsvRow(CsvReader r, long record) {
+        try {
+            return switch (r.getString(0)) {
+                case "S" -> new Row(record, TrainingSession.fromCsv(r, 1), null, null);
+                case "D" -> new Row(record, null, DrillEntry.fromCsv(r, 1), null);
+                default -> new Row(record, null, null, "expected S or D in the first column: " + r);
+            };
+        } catch (RuntimeException e) {
+            return new Row(record, null, null, e.getMessage());
+        }
+    }
+
+    private static void parseNdjson(Path file, BlockingQueue<List<Row>> queue) {
+        try (BufferedReader br = Files.newBufferedReader(file)) {
+            List<Row> batch = new ArrayList<>(BATCH_ROWS);
+            long lineNo = 0;
+            String line;
+            while ((line = br.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                parseNdjsonLine(line, lineNo, batch);
+                if (batch.size() >= BATCH_ROWS) {
+                    put(queue, batch);
+                    batch = new ArrayList<>(BATCH_ROWS);
+                }
+            }
+            if (!batch.isEmpty()) put(queue, batch);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void parseNdjsonLine(String line, long lineNo, List<Row> batch) {
+        Map<String, List<Map<String, String>>> nested = new HashMap<>();
+        TrainingSession session;
+        try {
+            Map<String, String> fields = JsonReader.parseObject(line, nested);
+            session = TrainingSession.create(
+                Integer.parseInt(JsonReader.required(fields, "id")),
+                LocalDate.parse(JsonReader.required(fields, "date")),
+                enumValue(SESSION_TYPES, JsonReader.required(fields, "type")),
+                Integer.parseInt(JsonReader.required(fields, "minutes")),
+                Integer.parseInt(JsonReader.required(fields, "intensity")),
+                fields.get("notes"));
+        } catch (RuntimeException e) {
+            // Its drills can't be placed either, so the whole line counts as one bad row.
+            batch.add(new Row(lineNo, null, null, e.getMessage()));
+            return;
+        }
+        batch.add(new Row(lineNo, session, null, null));
+        for (Map<String, String> d : nested.getOrDefault("drills", List.of())) {
+            try {
+                batch.add(new Row(lineNo, null, DrillEntry.create(
+                    Integer.parseInt(d.getOrDefault("id", "0")),
+                    session.id(),
+                    enumValue(DRILL_TYPES, JsonReader.required(d, "drillType")),
+                    Integer.parseInt(JsonReader.required(d, "reps")),
+                    Integer.parseInt(d.getOrDefault("success", "0")),
+                    d.get("notes")), null));
+            } catch (RuntimeException e) {
+                batch.add(new Row(lineNo, null, null, "drill: " + e.getMessage()));
+            }
+        }
+    }
+
+    private static <E extends Enum<E>> E enumValue(E[] values, String name) {
+        String upper = name.trim().toUpperCase();
+        for (E e : values) {
+            if (e.name().equals(upper)) return e;
+        }
+        throw new IllegalArgumentException("Unknown " + values.getClass().getComponentType().getSimpleName() + " " + name);
+    }
+
+    private static void put(BlockingQueue<List<Row>> queue, List<Row> batch) {
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Import parser interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Streaming RFC-4180 CSV scanner. Reads one record at a time from a Reader or
+ * a UTF-8 ByteBuffer into a reused char buffer and exposes the fields as
+ * slices of it, so numbers, dates and enums are decoded without building a
+ * String per field. Quoted fields may contain commas, doubled quotes and line
+ * breaks. A quote that doesn't start a field is kept as a literal character,
+ * which keeps older unquoted files readable. Blank lines are skipped.
+ */
+public class CsvReader {
+    private final Reader reader;
+    private final ByteBuffer bytes;
+    private final CharsetDecoder decoder;
+
+    private final char[] buf;
+    private int pos;
+    private int limit;
+    // Chars handed out by earlier fills, so position() can count from the start of the input.
+    private long consumed;
+    private boolean eof;
+
+    private char[] rec = new char[256];
+    private int recLength;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int fields;
+
+    public CsvReader(Reader reader) {
+        this(reader, 1 << 16);
+    }
+
+    private CsvReader(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.bytes = null;
+        this.decoder = null;
+        this.buf = new char[bufferSize];
+    }
+
+    public CsvReader(ByteBuffer bytes) {
+        this.reader = null;
+        this.bytes = bytes;
+        this.decoder = StandardCharsets.UTF_8.newDecoder();
+        this.buf = new char[1 << 16];
+    }
+
+    /** Convenience for a single line, e.g. a journal payload. */
+    public static CsvReader ofLine(String line) {
+        CsvReader r = new CsvReader(new StringReader(line), Math.max(16, line.length()));
+        if (!r.next()) throw new IllegalArgumentException("Empty CSV line");
+        return r;
+    }
+
+    /** Advances to the next non-blank record. Returns false at end of input. */
+    public boolean next() {
+        while (true) {
+            int c = peek();
+            if (c < 0) {
+                fields = 0;
+                return false;
+            }
+            if (c == '\n' || c == '\r') {
+                pos++;
+                continue;
+            }
+            readRecord();
+            return true;
+        }
+    }
+
+    private void readRecord() {
+        recLength = 0;
+        fields = 0;
+        while (true) {
+            int start = recLength;
+            int c = peek();
+            if (c == '"') {
+                pos++;
+                readQuoted(start);
+            }
+            while ((c = peek()) >= 0 && c != ',' && c != '\n' && c != '\r') {
+                append((char) c);
+                pos++;
+            }
+            addField(start, recLength);
+            if (c == ',') {
+                pos++;
+                continue;
+            }
+            if (c == '\r') {
+                pos++;
+                if (peek() == '\n') pos++;
+            } else if (c == '\n') {
+                pos++;
+            }
+            return;
+        }
+    }
+
+    private void readQuoted(int start) {
+        while (true) {
+            int c = peek();
+            // A stray quote would otherwise swallow every record after it into one field.
+            if (c < 0) {
+                throw new IllegalArgumentException("Unclosed quote in field starting: "
+                    + new String(rec, start, Math.min(recLength - start, 40)));
+            }
+            pos++;
+            if (c == '"') {
+                if (peek() == '"') {
+                    append('"');
+                    pos++;
+                } else {
+                    return;
+                }
+            } else {
+                append((char) c);
+            }
+        }
+    }
+
+    private int peek() {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos];
+    }
+
+    private boolean fill() {
+        if (eof) return false;
+        consumed += limit;
+        pos = 0;
+        limit = 0;
+        try {
+            if (reader != null) {
+                int n;
+                do {
+                    n = reader.read(buf, 0, buf.length);
+                } while (n == 0);
+                if (n < 0) {
+                    eof = true;
+                    return false;
+                }
+                limit = n;
+            } else {
+                if (!bytes.hasRemaining()) {
+                    eof = true;
+                    return false;
+                }
+                CharBuffer out = CharBuffer.wrap(buf);
+                CoderResult result = decoder.decode(bytes, out, true);
+                if (result.isError()) result.throwException();
+                limit = out.position();
+                if (limit == 0) {
+                    eof = true;
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading CSV: " + e.getMessage(), e);
+        }
+    }
+
+    private void append(char c) {
+        if (recLength == rec.length) rec = Arrays.copyOf(rec, rec.length * 2);
+        rec[recLength++] = c;
+    }
+
+    private void addField(int start, int end) {
+        if (fields == starts.length) {
+            starts = Arrays.copyOf(starts, fields * 2);
+            ends = Arrays.copyOf(ends, fields * 2);
+        }
+        starts[fields] = start;
+        ends[fields] = end;
+        fields++;
+    }
+
+    /** Chars read so far, up to and including the current record's line break if it had one. */
+    public long position() {
+        return consumed + pos;
+    }
+
+    public int fieldCount() {
+        return fields;
+    }
+
+    public boolean isEmpty(int field) {
+        return starts[field] == ends[field];
+    }
+
+    public String getString(int field) {
+        return new String(rec, starts[field], ends[field] - starts[field]);
+    }
+
+    public char getChar(int field) {
+        if (ends[field] - starts[field] != 1) throw new IllegalArgumentException("Expected one character: " + getString(field));
+        return rec[starts[field]];
+    }
+
+    public int getInt(int field) {
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = i < end && rec[i] == '-';
+        if (negative || (i < end && rec[i] == '+')) i++;
+        if (i == end) throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = rec[i] - '0';
+            if (digit < 0 || digit > 9) throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) throw new NumberFormatException("Out of range: \"" + getString(field) + "\"");
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) throw new NumberFormatException("Out of range: \"" + getString(field) + "\"");
+        return (int) value;
+    }
+
+    /** Parses yyyy-MM-dd in place; anything else goes through LocalDate.parse. */
+    public LocalDate getDate(int field) {
+        int s = starts[field];
+        if (ends[field] - s == 10 && rec[s + 4] == '-' && rec[s + 7] == '-') {
+            int year = digits(s, 4);
+            int month = digits(s + 5, 2);
+            int day = digits(s + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0) return LocalDate.of(year, month, day);
+        }
+        return LocalDate.parse(getString(field));
+    }
+
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = rec[i] - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /** Matches the field against the constant names without allocating. */
+    public <E extends Enum<E>> E getEnum(int field, E[] values) {
+        int s = starts[field];
+        int len = ends[field] - s;
+        for (E e : values) {
+            String name = e.name();
+            if (name.length() != len) continue;
+            int i = 0;
+            while (i < len && name.charAt(i) == rec[s + i]) i++;
+            if (i == len) return e;
+        }
+        throw new IllegalArgumentException("No enum constant " + values.getClass().getComponentType().getName()
+            + "." + getString(field));
+    }
+
+    /** The current record re-joined with commas, for error messages. */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(rec, starts[i], ends[i] - starts[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -1,105 +1,186 @@
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class CsvStorage implements Storage {
+    // Below this size a single sequential read is faster than mapping and splitting.
+    private static final long PARALLEL_MIN_BYTES = 8L << 20;
+
+    private static final Metrics.Counter BYTES_READ = Metrics.counter("csv.bytesRead");
+    private static final Metrics.Counter BYTES_WRITTEN = Metrics.counter("csv.bytesWritten");
+    private static final Metrics.Counter ROWS_PARSED = Metrics.counter("csv.rowsParsed");
+    private static final Metrics.Counter ROWS_WRITTEN = Metrics.counter("csv.rowsWritten");
 
-public class CsvStorage {
     private final Path sessionsPath;
     private final Path drillsPath;
     private final Path targetsPath;
+    private final boolean parallelLoad;
 
     public CsvStorage(String sessionsFile, String drillsFile, String targetsFile) {
+        this(sessionsFile, drillsFile, targetsFile, false);
+    }
+
+    /** With parallelLoad, large files are memory-mapped and parsed in chunks on the common fork-join pool. */
+    public CsvStorage(String sessionsFile, String drillsFile, String targetsFile, boolean parallelLoad) {
         this.sessionsPath = Paths.get(sessionsFile);
         this.drillsPath = Paths.get(drillsFile);
         this.targetsPath = Paths.get(targetsFile);
+        this.parallelLoad = parallelLoad;
     }
 
+    @Override
     public List<TrainingSession> loadSessions() {
-        if (!Files.exists(sessionsPath)) {
-            return new ArrayList<>();
-        }
-        try {
-            List<String> lines = Files.readAllLines(sessionsPath);
-            List<TrainingSession> out = new ArrayList<>();
-            for (String line : lines) {
-                if (!line.isBlank()) {
-                     out.add(TrainingSession.fromCsv(line));
+        return readAll(sessionsPath, "sessions", r -> TrainingSession.fromCsv(r, 0));
+    }
+
+        @Override
+        public void saveSessions(Collection<TrainingSession> sessions) {
+            writeAll(sessionsPath, "sessions", sessions.size(), w -> {
+                for (TrainingSession s : sessions) {
+                    s.writeCsv(w);
+                    w.endRecord();
                 }
-            }
-            return out;
-        } catch (IOException e) {
-            throw new RuntimeException("Failed reading sessions: " + e.getMessage(), e);
-            }
-        }
-        public void saveSessions(List<TrainingSession> sessions) {
-            List<String> lines = new ArrayList<>();
-            for (TrainingSession s : sessions) {
-                lines.add(s.toCsv());
-            }
-            writeAll(sessionsPath, lines);
+            });
         }
 
+        @Override
         public List<DrillEntry> loadDrills() {
-            if (!Files.exists(drillsPath)) {
-                 return new ArrayList<>();
-            }
-            try {
-                List<String> lines = Files.readAllLines(drillsPath);
-                List<DrillEntry> out = new ArrayList<>();
-                for (String line : lines) {
-                    if (!line.isBlank()) {
-                         out.add(DrillEntry.fromCsv(line));
-                    }
-                }
-                return out;
-            } catch (IOException e) {
-                throw new RuntimeException("Failed reading drills: " + e.getMessage(), e);
-            }
+            return readAll(drillsPath, "drills", r -> DrillEntry.fromCsv(r, 0));
         }
 
-        public void saveDrills(List<DrillEntry> drills) {
-            List<String> lines = new ArrayList<>();
-            for (DrillEntry d : drills) {
-                lines.add(d.toCsv());
-            }
-            writeAll(drillsPath, lines);
+        @Override
+        public void saveDrills(Collection<DrillEntry> drills) {
+            writeAll(drillsPath, "drills", drills.size(), w -> {
+                for (DrillEntry d : drills) {
+                    d.writeCsv(w);
+                    w.endRecord();
+                }
+            });
         }
 
+        @Override
         public Optional<Targets> loadTargets() {
             if (!Files.exists(targetsPath)) {
                 return Optional.empty();
             }
-            try {
-                List<String> lines = Files.readAllLines(targetsPath);
-                for (String line : lines) {
-                    if (!line.isBlank()) {
-                        return Optional.of(Targets.fromCsv(line));
-                    }
+            long start = System.nanoTime();
+            try (BufferedReader br = Files.newBufferedReader(targetsPath)) {
+                CsvReader r = new CsvReader(br);
+                if (r.next()) {
+                    return Optional.of(Targets.fromCsv(r, 0));
                 }
                 return Optional.empty();
             } catch (IOException e) {
                 throw new RuntimeException("Failed reading targets: " + e.getMessage(), e);
+            } finally {
+                Metrics.histogram("csv.read.targets").recordSince(start);
+            }
+        }
+
+        /** Newest modification time of the three CSV files, or 0 if none exist. */
+        @Override
+        public long lastModified() {
+            long newest = 0;
+            for (Path p : List.of(sessionsPath, drillsPath, targetsPath)) {
+                try {
+                    if (Files.exists(p)) {
+                        newest = Math.max(newest, Files.getLastModifiedTime(p).toMillis());
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed reading " + p + ": " + e.getMessage(), e);
+                }
             }
+            return newest;
         }
 
+        @Override
         public void saveTargets(Targets targets) {
-            List<String> lines = new ArrayList<>();
-            lines.add(targets.toCsv());
-            writeAll(targetsPath, lines);
+            writeAll(targetsPath, "targets", 1, w -> {
+                targets.writeCsv(w);
+                w.endRecord();
+            });
         }
 
-        private void writeAll(Path path, List<String> lines) {
-            try (BufferedWriter bw = Files.newBufferedWriter(path)) {
-                for (String line : lines) {
-                    bw.write(line);
-                    bw.newLine();
+        /** Parses every record of the file in order; a missing file has no records. */
+        private <T> List<T> readAll(Path path, String what, Function<CsvReader, T> parser) {
+            List<T> out = new ArrayList<>();
+            if (!Files.exists(path)) {
+                return out;
+            }
+            long start = System.nanoTime();
+            TrackerEvents.CsvRead event = new TrackerEvents.CsvRead();
+            event.begin();
+            try {
+                long size = Files.size(path);
+                if (parallelLoad && size >= PARALLEL_MIN_BYTES) {
+                    out = new ParallelCsvLoader(ForkJoinPool.commonPool()).load(path, parser);
+                } else {
+                    try (BufferedReader br = Files.newBufferedReader(path)) {
+                        CsvReader r = new CsvReader(br);
+                        while (r.next()) {
+                            out.add(parser.apply(r));
+                        }
+                    }
                 }
+                BYTES_READ.add(size);
+                ROWS_PARSED.add(out.size());
+                event.file = path.toString();
+                event.rows = out.size();
+                event.bytes = size;
+                event.commit();
+                return out;
             } catch (IOException e) {
-                throw new RuntimeException("Failed writing to " + path + ": " + e.getMessage(), e);
+                throw new RuntimeException("Failed reading " + what + ": " + e.getMessage(), e);
+            } finally {
+                Metrics.histogram("csv.read." + what).recordSince(start);
             }
         }
-    }
 
+        /**
+         * Writes to a temp file, syncs it and renames it over the target, so a crash
+         * mid-write leaves the previous file intact rather than a truncated one.
+         */
+        private void writeAll(Path path, String what, int rowCount, Consumer<CsvWriter> rows) {
+            long start = System.nanoTime();
+            TrackerEvents.CsvWrite event = new TrackerEvents.CsvWrite();
+            event.begin();
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+                 CsvWriter w = new CsvWriter(new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8)))) {
+                rows.accept(w);
+                w.flush();
+                fos.getFD().sync();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed writing to " + tmp + ": " + e.getMessage(), e);
+            }
 
+            try {
+                try {
+                    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed replacing " + path + ": " + e.getMessage(), e);
+            }
+            long bytes = path.toFile().length();
+            BYTES_WRITTEN.add(bytes);
+            ROWS_WRITTEN.add(rowCount);
+            event.file = path.toString();
+            event.rows = rowCount;
+            event.bytes = bytes;
+            event.commit();
+            Metrics.histogram("csv.write." + what).recordSince(start);
+        }
+    }
@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Streaming CSV writer matching CsvReader. Fields are written straight to the
+ * underlying Writer; text is quoted only when it contains a comma, quote or
+ * line break, so plain rows look exactly like the old hand-built ones.
+ */
+public class CsvWriter implements AutoCloseable {
+    private final Writer out;
+    private final char[] digits = new char[11];
+    private boolean firstField = true;
+
+    public CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    /** Renders a single record to a String, e.g. for toCsv() or a journal line. */
+    public static String line(Consumer<CsvWriter> record) {
+        StringWriter sw = new StringWriter(64);
+        CsvWriter w = new CsvWriter(sw);
+        record.accept(w);
+        return sw.toString();
+    }
+
+    public CsvWriter field(int value) {
+        separator();
+        // Integer.toString without the String.
+        int pos = digits.length;
+        long v = value;
+        boolean negative = v < 0;
+        if (negative) v = -v;
+        do {
+            digits[--pos] = (char) ('0' + v % 10);
+            v /= 10;
+        } while (v > 0);
+        if (negative) digits[--pos] = '-';
+        write(digits, pos, digits.length - pos);
+        return this;
+    }
+
+    public CsvWriter field(char value) {
+        separator();
+        write(value);
+        return this;
+    }
+
+    public CsvWriter field(Enum<?> value) {
+        separator();
+        write(value.name());
+        return this;
+    }
+
+    public CsvWriter field(LocalDate value) {
+        separator();
+        write(value.toString());
+        return this;
+    }
+
+    public CsvWriter field(String value) {
+        separator();
+        if (value == null || value.isEmpty()) return this;
+        if (!needsQuotes(value)) {
+            write(value);
+            return this;
+        }
+        write('"');
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                write(value.substring(from, i + 1));
+                write('"');
+                from = i + 1;
+            }
+        }
+        write(value.substring(from));
+        write('"');
+        return this;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    public void endRecord() {
+        write('\n');
+        firstField = true;
+    }
+
+    private void separator() {
+        if (!firstField) write(',');
+        firstField = false;
+    }
+
+    private void write(char c) {
+        try {
+            out.write(c);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing CSV: " + e.getMessage(), e);
+        }
+    }
+
+    private void write(String s) {
+        try {
+            out.write(s);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing CSV: " + e.getMessage(), e);
+        }
+    }
+
+    private void write(char[] chars, int off, int len) {
+        try {
+            out.write(chars, off, len);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing CSV: " + e.getMessage(), e);
+        }
+    }
+
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing CSV: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed closing CSV: " + e.getMessage(), e);
+        }
+    }
+}
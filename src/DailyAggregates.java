@@ -0,0 +1,194 @@
+/**
+ * Per-day totals keyed by epoch day, with a Fenwick tree over them so any
+ * date range can be summed in O(log days). Each day holds METRICS longs laid
+ * out flat: session count, minutes, load, then minutes per SessionType and
+ * reps/success per DrillType.
+ */
+public class DailyAggregates {
+    public static final int SESSIONS = 0;
+    public static final int MINUTES = 1;
+    public static final int LOAD = 2;
+    public static final int MINUTES_BY_TYPE = 3;
+    public static final int REPS_BY_DRILL = MINUTES_BY_TYPE + SessionType.values().length;
+    public static final int SUCCESS_BY_DRILL = REPS_BY_DRILL + DrillType.values().length;
+    public static final int METRICS = SUCCESS_BY_DRILL + DrillType.values().length;
+    // Every day between the oldest and newest date gets a row, so a typo'd year must not get this far.
+    private static final long MAX_SPAN_DAYS = 1 << 16;
+
+    private long baseDay;
+    private int capacity;
+    // The oldest and newest days written to, so the span check ignores resize headroom.
+    private long lowDay;
+    private long highDay;
+    private long[] daily = new long[0];
+    private long[] tree = new long[0];
+    // After a clear or a resize the tree is only rebuilt by refresh(), so bulk loads stay O(n)
+    // and the read methods never write, which lets them run alongside a writer.
+    private boolean treeStale = true;
+
+    public void clear() {
+        baseDay = 0;
+        capacity = 0;
+        daily = new long[0];
+        tree = new long[0];
+        treeStale = true;
+    }
+
+    /** Approximate heap bytes of the per-day and tree arrays. */
+    public long footprintBytes() {
+        return ((long) daily.length + tree.length) * 8;
+    }
+
+    public void addSession(long epochDay, int typeOrdinal, int minutes, int intensity, int sign) {
+        add(epochDay, SESSIONS, sign);
+        add(epochDay, MINUTES, (long) sign * minutes);
+        add(epochDay, LOAD, (long) sign * minutes * intensity);
+        add(epochDay, MINUTES_BY_TYPE + typeOrdinal, (long) sign * minutes);
+    }
+
+    /** Drills count towards the day of the session they belong to. */
+    public void addDrill(long epochDay, int drillTypeOrdinal, int reps, int success, int sign) {
+        add(epochDay, REPS_BY_DRILL + drillTypeOrdinal, (long) sign * reps);
+        add(epochDay, SUCCESS_BY_DRILL + drillTypeOrdinal, (long) sign * success);
+    }
+
+    private void add(long epochDay, int metric, long delta) {
+        if (delta == 0) return;
+        ensureCovers(epochDay);
+        int idx = (int) (epochDay - baseDay);
+        daily[idx * METRICS + metric] += delta;
+        if (treeStale) return;
+        for (int i = idx + 1; i <= capacity; i += i & -i) {
+            tree[(i - 1) * METRICS + metric] += delta;
+        }
+    }
+
+    /** Totals for every metric over fromDay..toDay inclusive. */
+    public long[] sum(long fromDay, long toDay) {
+        long[] out = new long[METRICS];
+        long lo = Math.max(fromDay, baseDay);
+        long hi = Math.min(toDay, baseDay + capacity - 1);
+        if (lo > hi) return out;
+        checkFresh();
+
+        addPrefix(out, (int) (hi - baseDay) + 1, 1);
+        addPrefix(out, (int) (lo - baseDay), -1);
+        return out;
+    }
+
+    /** Total of one metric over fromDay..toDay inclusive. */
+    public long sum(long fromDay, long toDay, int metric) {
+        long lo = Math.max(fromDay, baseDay);
+        long hi = Math.min(toDay, baseDay + capacity - 1);
+        if (lo > hi) return 0;
+        checkFresh();
+        return prefix((int) (hi - baseDay) + 1, metric) - prefix((int) (lo - baseDay), metric);
+    }
+
+    private long prefix(int count, int metric) {
+        long total = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            total += tree[(i - 1) * METRICS + metric];
+        }
+        return total;
+    }
+
+    /**
+     * The earliest day by which the running total of a (non-negative) metric exceeds k,
+     * counting from the oldest day. Used to find the n-th session by date. Returns
+     * Long.MIN_VALUE when the whole total is k or less.
+     */
+    public long dayOfNth(int metric, long k) {
+        if (capacity == 0) return Long.MIN_VALUE;
+        checkFresh();
+        int pos = 0;
+        long remaining = k;
+        for (int step = Integer.highestOneBit(capacity); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= capacity && tree[(next - 1) * METRICS + metric] <= remaining) {
+                pos = next;
+                remaining -= tree[(next - 1) * METRICS + metric];
+            }
+        }
+        return pos == capacity ? Long.MIN_VALUE : baseDay + pos;
+    }
+
+    /** Raw value of one metric on one day. */
+    public long dayValue(long epochDay, int metric) {
+        if (epochDay < baseDay || epochDay >= baseDay + capacity) return 0;
+        return daily[(int) (epochDay - baseDay) * METRICS + metric];
+    }
+
+    /** One metric for every day from fromDay..toDay inclusive, oldest first; days with no data are 0. */
+    public long[] days(long fromDay, long toDay, int metric) {
+        long[] out = new long[(int) (toDay - fromDay + 1)];
+        long lo = Math.max(fromDay, baseDay);
+        long hi = Math.min(toDay, baseDay + capacity - 1);
+        for (long day = lo; day <= hi; day++) {
+            out[(int) (day - fromDay)] = daily[(int) (day - baseDay) * METRICS + metric];
+        }
+        return out;
+    }
+
+    private void addPrefix(long[] out, int count, int sign) {
+        for (int i = count; i > 0; i -= i & -i) {
+            int row = (i - 1) * METRICS;
+            for (int m = 0; m < METRICS; m++) {
+                out[m] += sign * tree[row + m];
+            }
+        }
+    }
+
+    /** Rebuilds the tree if a clear or resize left it stale. Call after updates, before reading. */
+    public void refresh() {
+        if (treeStale) rebuild();
+    }
+
+    private void checkFresh() {
+        if (treeStale) throw new IllegalStateException("Aggregates read before refresh()");
+    }
+
+    private void rebuild() {
+        tree = daily.clone();
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent > capacity) continue;
+            int from = (i - 1) * METRICS;
+            int to = (parent - 1) * METRICS;
+            for (int m = 0; m < METRICS; m++) {
+                tree[to + m] += tree[from + m];
+            }
+        }
+        treeStale = false;
+    }
+
+    private void ensureCovers(long epochDay) {
+        long lo = capacity == 0 ? epochDay : Math.min(lowDay, epochDay);
+        long hi = capacity == 0 ? epochDay : Math.max(highDay, epochDay);
+        if (capacity > 0 && epochDay >= baseDay && epochDay < baseDay + capacity) {
+            lowDay = lo;
+            highDay = hi;
+            return;
+        }
+
+        long span = hi - lo + 1;
+        if (span > MAX_SPAN_DAYS) {
+            throw new IllegalArgumentException("Day " + epochDay + " is too far from the other dates to aggregate");
+        }
+        int newCapacity = Math.max(64, Integer.highestOneBit((int) span * 2) << 1);
+        // Leave headroom on both sides so sessions logged around the edges don't resize again.
+        long newBase = lo - (newCapacity - span) / 2;
+
+        long[] grown = new long[newCapacity * METRICS];
+        if (capacity > 0) {
+            System.arraycopy(daily, (int) (lowDay - baseDay) * METRICS, grown, (int) (lowDay - newBase) * METRICS,
+                    (int) (highDay - lowDay + 1) * METRICS);
+        }
+        daily = grown;
+        baseDay = newBase;
+        lowDay = lo;
+        highDay = hi;
+        capacity = newCapacity;
+        treeStale = true;
+    }
+}
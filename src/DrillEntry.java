@@ -1,5 +1,8 @@
+import java.util.Map;
+
 public record DrillEntry(int id, int sessionId, DrillType drillType,
     int reps, int success, String notes) {
+    private static final DrillType[] TYPES = DrillType.values();
 
      
     public static DrillEntry create(int id, int sessionId, DrillType drillType, int reps, int success, String notes) {
@@ -31,20 +34,49 @@ public record DrillEntry(int id, int sessionId, DrillType drillType,
     }
 
     public String toCsv() {
-        return id + "," + sessionId + "," + drillType + "," + reps + "," + success + "," + CsvUtil.clean(notes);
+        return CsvWriter.line(this::writeCsv);
+    }
+
+    public void writeCsv(CsvWriter w) {
+        w.field(id).field(sessionId).field(drillType).field(reps).field(success).field(notes);
+    }
+
+    public void writeJson(JsonWriter w) {
+        w.beginObject()
+            .name("id").value(id)
+            .name("sessionId").value(sessionId)
+            .name("drillType").value(drillType)
+            .name("reps").value(reps)
+            .name("success").value(success)
+            .name("notes").value(notes)
+            .endObject();
+    }
+
+    /** Builds a drill from parsed JSON fields; the id comes from the caller, not the client. */
+    public static DrillEntry fromJson(Map<String, String> f, int id) {
+        return create(id,
+            Integer.parseInt(JsonReader.required(f, "sessionId")),
+            DrillType.valueOf(JsonReader.required(f, "drillType").toUpperCase()),
+            Integer.parseInt(JsonReader.required(f, "reps")),
+            Integer.parseInt(f.getOrDefault("success", "0")),
+            f.get("notes"));
     }
 
     public static DrillEntry fromCsv(String line) {
-        var cols = CsvUtil.parse(line);
-        if (cols.size() < 6) throw new IllegalArgumentException("Bad drill row: " + line);
+        return fromCsv(CsvReader.ofLine(line), 0);
+    }
+
+    /** Reads six columns starting at {@code first} of the reader's current record. */
+    public static DrillEntry fromCsv(CsvReader r, int first) {
+        if (r.fieldCount() < first + 6) throw new IllegalArgumentException("Bad drill row: " + r);
         
         return new DrillEntry(
-            Integer.parseInt(cols.get(0)),
-            Integer.parseInt(cols.get(1)),
-            DrillType.valueOf(cols.get(2)),
-            Integer.parseInt(cols.get(3)),
-            Integer.parseInt(cols.get(4)),
-            cols.get(5)
+            r.getInt(first),
+            r.getInt(first + 1),
+            r.getEnum(first + 2, TYPES),
+            r.getInt(first + 3),
+            r.getInt(first + 4),
+            r.getString(first + 5)
         );
     }
 
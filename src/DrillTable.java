@@ -0,0 +1,192 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column-oriented storage for drills, the counterpart of SessionTable. Rows of
+ * the same session are chained through prev/next columns so a session's drills
+ * can be listed or dropped without touching anyone else's.
+ */
+public class DrillTable {
+    private static final DrillType[] TYPES = DrillType.values();
+    private static final byte FREE = -1;
+    private static final int NONE = -1;
+
+    private int[] ids = new int[0];
+    private int[] sessionIds = new int[0];
+    private byte[] types = new byte[0];
+    private int[] reps = new int[0];
+    private int[] success = new int[0];
+    private String[] notes = new String[0];
+    // Kept up to date on every write, so footprintBytes() needn't walk the notes.
+    private long notesBytes;
+    private int[] next = new int[0];
+    private int[] prev = new int[0];
+
+    private int highWater;
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+    private final IntIntMap slotById = new IntIntMap();
+    private final IntIntMap headBySession = new IntIntMap();
+    private final IntIntMap tailBySession = new IntIntMap();
+
+    public void clear() {
+        ids = new int[0];
+        sessionIds = new int[0];
+        types = new byte[0];
+        reps = new int[0];
+        success = new int[0];
+        notes = new String[0];
+        notesBytes = 0;
+        next = new int[0];
+        prev = new int[0];
+        highWater = 0;
+        freeCount = 0;
+        slotById.clear();
+        headBySession.clear();
+        tailBySession.clear();
+    }
+
+    public int size() {
+        return slotById.size();
+    }
+
+    public int highWater() {
+        return highWater;
+    }
+
+    /** Approximate heap bytes: the columns at capacity, the maps and the notes text. */
+    public long footprintBytes() {
+        return (long) ids.length * (4 + 4 + 1 + 4 + 4 + 4 + 4 + 4) + (long) freeSlots.length * 4
+            + slotById.footprintBytes() + headBySession.footprintBytes() + tailBySession.footprintBytes()
+            + notesBytes;
+    }
+
+    public boolean isLive(int slot) {
+        return types[slot] != FREE;
+    }
+
+    public int slotOf(int id) {
+        return slotById.get(id, NONE);
+    }
+
+    /** Appends a drill to the end of its session's chain. */
+    public int insert(DrillEntry d) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (highWater == ids.length) grow();
+            slot = highWater++;
+        }
+        ids[slot] = d.id();
+        sessionIds[slot] = d.sessionId();
+        types[slot] = (byte) d.drillType().ordinal();
+        reps[slot] = d.reps();
+        success[slot] = d.success();
+        notes[slot] = d.notes().isEmpty() ? null : d.notes();
+        notesBytes += Metrics.stringBytes(notes[slot]);
+        slotById.put(d.id(), slot);
+
+        int tail = tailBySession.get(d.sessionId(), NONE);
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            headBySession.put(d.sessionId(), slot);
+        } else {
+            next[tail] = slot;
+        }
+        tailBySession.put(d.sessionId(), slot);
+        return slot;
+    }
+
+    public void remove(int slot) {
+        int sessionId = sessionIds[slot];
+        if (prev[slot] == NONE) {
+            if (next[slot] == NONE) headBySession.remove(sessionId, NONE);
+            else headBySession.put(sessionId, next[slot]);
+        } else {
+            next[prev[slot]] = next[slot];
+        }
+        if (next[slot] == NONE) {
+            if (prev[slot] == NONE) tailBySession.remove(sessionId, NONE);
+            else tailBySession.put(sessionId, prev[slot]);
+        } else {
+            prev[next[slot]] = prev[slot];
+        }
+
+        slotById.remove(ids[slot], NONE);
+        types[slot] = FREE;
+        notesBytes -= Metrics.stringBytes(notes[slot]);
+        notes[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /** Slots of a session's drills in the order they were added. */
+    public int[] slotsForSession(int sessionId) {
+        int count = 0;
+        for (int s = headBySession.get(sessionId, NONE); s != NONE; s = next[s]) count++;
+        int[] out = new int[count];
+        int i = 0;
+        for (int s = headBySession.get(sessionId, NONE); s != NONE; s = next[s]) out[i++] = s;
+        return out;
+    }
+
+    public List<DrillEntry> forSession(int sessionId) {
+        List<DrillEntry> out = new ArrayList<>();
+        for (int s = headBySession.get(sessionId, NONE); s != NONE; s = next[s]) {
+            out.add(get(s));
+        }
+        return out;
+    }
+
+    public DrillEntry get(int slot) {
+        return new DrillEntry(
+            ids[slot],
+            sessionIds[slot],
+            TYPES[types[slot]],
+            reps[slot],
+            success[slot],
+            notes[slot] == null ? "" : notes[slot]
+        );
+    }
+
+    public int id(int slot) {
+        return ids[slot];
+    }
+
+    public int sessionId(int slot) {
+        return sessionIds[slot];
+    }
+
+    public int typeOrdinal(int slot) {
+        return types[slot];
+    }
+
+    public int reps(int slot) {
+        return reps[slot];
+    }
+
+    public int success(int slot) {
+        return success[slot];
+    }
+
+    public String notes(int slot) {
+        return notes[slot] == null ? "" : notes[slot];
+    }
+
+    private void grow() {
+        int cap = Math.max(64, ids.length * 2);
+        ids = Arrays.copyOf(ids, cap);
+        sessionIds = Arrays.copyOf(sessionIds, cap);
+        types = Arrays.copyOf(types, cap);
+        reps = Arrays.copyOf(reps, cap);
+        success = Arrays.copyOf(success, cap);
+        notes = Arrays.copyOf(notes, cap);
+        next = Arrays.copyOf(next, cap);
+        prev = Arrays.copyOf(prev, cap);
+    }
+}
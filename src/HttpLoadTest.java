@@ -0,0 +1,98 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load-test harness for TrackerHttpServer. Each simulated tablet is a virtual
+ * thread looping over a mix of requests: 10% add a session, 60% fetch this
+ * week's stats (re-sending the last ETag, as a polling client would), 30% list
+ * the latest 50 sessions. Prints throughput, status counts and latency
+ * percentiles.
+ *
+ * Usage: java HttpLoadTest [baseUrl] [clients] [seconds]
+ * e.g.   java HttpLoadTest http://localhost:8080 200 30
+ * Point it at a scratch data directory: it really adds sessions.
+ */
+public class HttpLoadTest {
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        HttpClient http = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+        List<long[]> latencies = new ArrayList<>();
+        AtomicLong failures = new AtomicLong();
+
+        try (ExecutorService tablets = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                long[] samples = new long[1 << 16];
+                latencies.add(samples);
+                long seed = c;
+                tablets.submit(() -> runClient(http, base, new Random(seed), deadline, samples, statuses, failures));
+            }
+        }
+
+        long[] all = latencies.stream().flatMapToLong(s -> Arrays.stream(s, 1, (int) Math.min(s[0] + 1, s.length))).sorted().toArray();
+        long total = statuses.values().stream().mapToLong(AtomicLong::get).sum();
+        System.out.printf("%d requests in %ds from %d clients: %.0f req/s, %d failed%n",
+            total, seconds, clients, total / (double) seconds, failures.get());
+        statuses.forEach((status, n) -> System.out.println("  HTTP " + status + ": " + n.get()));
+        if (all.length > 0) {
+            System.out.printf("  latency ms: p50 %.2f  p90 %.2f  p99 %.2f  max %.2f%n",
+                pct(all, 0.50), pct(all, 0.90), pct(all, 0.99), all[all.length - 1] / 1e6);
+        }
+    }
+
+    /** samples[0] holds the count; latencies in ns follow, dropping any past the array's end. */
+    private static void runClient(HttpClient http, String base, Random r, long deadline, long[] samples,
+                                  Map<Integer, AtomicLong> statuses, AtomicLong failures) {
+        String statsEtag = null;
+        while (System.nanoTime() < deadline) {
+            int pick = r.nextInt(10);
+            HttpRequest.Builder req;
+            if (pick == 0) {
+                String body = "{\"date\":\"" + LocalDate.now().minusDays(r.nextInt(60)) + "\",\"type\":\""
+                    + SessionType.values()[r.nextInt(SessionType.values().length)] + "\",\"minutes\":"
+                    + (20 + r.nextInt(70)) + ",\"intensity\":" + (1 + r.nextInt(5)) + ",\"notes\":\"load test\"}";
+                req = HttpRequest.newBuilder(URI.create(base + "/api/sessions"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+            } else if (pick <= 6) {
+                req = HttpRequest.newBuilder(URI.create(base + "/api/stats"));
+                if (statsEtag != null) req.header("If-None-Match", statsEtag);
+            } else {
+                req = HttpRequest.newBuilder(URI.create(base + "/api/sessions?limit=50"));
+            }
+
+            long start = System.nanoTime();
+            try {
+                HttpResponse<byte[]> res = http.send(req.build(), HttpResponse.BodyHandlers.ofByteArray());
+                long elapsed = System.nanoTime() - start;
+                if (samples[0] + 1 < samples.length) samples[(int) ++samples[0]] = elapsed;
+                statuses.computeIfAbsent(res.statusCode(), s -> new AtomicLong()).incrementAndGet();
+                if (pick > 0 && pick <= 6) statsEtag = res.headers().firstValue("ETag").orElse(statsEtag);
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                if (e instanceof InterruptedException) return;
+            }
+        }
+    }
+
+    private static double pct(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)))] / 1e6;
+    }
+}
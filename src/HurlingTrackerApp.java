@@ -1,21 +1,144 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 public class HurlingTrackerApp {
+    private static final int SEARCH_LIMIT = 50;
 
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
 
-        CsvStorage storage = new CsvStorage("sessions.csv", "drills.csv", "targets.csv");
-        TrackerService tracker = new TrackerService(storage);
-        tracker.load();
+        if (args.length >= 2 && args[0].equals("--squad")) {
+            runSquad(scanner, Paths.get(args[1]));
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--batch")) {
+            System.exit(runBatch(args));
+        }
 
-        tracker.save(); // Ensure targets file exists
+        TrackerService tracker = TrackerFactory.open(Paths.get(""));
 
         System.out.println("Hurling Training Tracker (Java CLI)");
+        runMenu(scanner, tracker);
+    }
+
+    /**
+     * Batch mode: --batch [script|-] [--checkpoint n]. Reads commands from the
+     * script, or stdin if none or "-". Exits 0 if every command ran, 1 at the
+     * first bad command, 2 for bad arguments.
+     */
+    private static int runBatch(String[] args) {
+        String script = "-";
+        int checkpointEvery = 0;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--checkpoint") && i + 1 < args.length) {
+                    checkpointEvery = Integer.parseInt(args[++i]);
+                } else {
+                    script = args[i];
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Usage: java HurlingTrackerApp --batch [script|-] [--checkpoint n]");
+            return 2;
+        }
+
+        TrackerService tracker = TrackerFactory.open(Paths.get(""));
+        try (BufferedReader in = script.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Paths.get(script))) {
+            int applied = new BatchRunner(tracker, checkpointEvery, System.out).run(in);
+            System.err.println("Applied " + applied + " changes.");
+            return 0;
+        } catch (BatchRunner.ScriptError e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (RuntimeException e) {
+            System.err.println("Failed: " + e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            System.err.println("Error: can't read " + script + ": " + e.getMessage());
+            return 2;
+        } finally {
+            tracker.close();
+        }
+    }
+
+    /** Squad mode: one data directory per player under root; a player's data loads when picked. */
+    private static void runSquad(Scanner scanner, Path root) {
+        long idleMillis = Long.getLong("tracker.squad.idleMs", 10 * 60 * 1000);
+        try (Squad squad = Squad.open(root, idleMillis)) {
+            System.out.println("Hurling Training Tracker - squad " + root.toAbsolutePath());
+            while (true) {
+                System.out.println("\n-- Squad ---");
+                System.out.println("1. Pick player");
+                System.out.println("2. Add player");
+                System.out.println("3. Squad weekly load (Last 7 days)");
+                System.out.println("4. Exit");
+                System.out.print("> ");
+
+                String choice = scanner.nextLine().trim();
+                try {
+                    switch (choice) {
+                        case "1" -> {
+                            List<String> players = squad.players();
+                            if (players.isEmpty()) {
+                                System.out.println("No players yet.");
+                                continue;
+                            }
+                            System.out.println("Players: " + String.join(", ", players));
+                            System.out.print("Player: ");
+                            try (Squad.Lease lease = squad.lease(scanner.nextLine().trim())) {
+                                runMenu(scanner, lease.tracker());
+                            }
+                        }
+                        case "2" -> {
+                            System.out.print("Player name: ");
+                            squad.addPlayer(scanner.nextLine().trim());
+                        }
+                        case "3" -> squadWeeklyLoad(squad);
+                        case "4" -> {
+                            System.out.println("Saved. Exiting.");
+                            return;
+                        }
+                        default -> System.out.println("Invalid choice. Try again.");
+                    }
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Error: " + e.getMessage());
+                }
+            }
+        }
+    }
 
+    private static void squadWeeklyLoad(Squad squad) {
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(6);
+        Map<String, TrackerService.WeeklyStats> byPlayer = squad.statsByPlayer(from, to);
+
+        int sessions = 0;
+        int minutes = 0;
+        int load = 0;
+        System.out.println("\nSquad load (" + from + " to " + to + "):");
+        for (Map.Entry<String, TrackerService.WeeklyStats> e : byPlayer.entrySet()) {
+            TrackerService.WeeklyStats stats = e.getValue();
+            System.out.println("- " + e.getKey() + ": " + stats.sessionCount() + " sessions, "
+                + stats.totalMinutes() + " min, load " + stats.trainingLoad());
+            sessions += stats.sessionCount();
+            minutes += stats.totalMinutes();
+            load += stats.trainingLoad();
+        }
+        System.out.println("Team: " + sessions + " sessions, " + minutes + " min, load " + load);
+    }
+
+    private static void runMenu(Scanner scanner, TrackerService tracker) {
         while (true) {
             System.out.println("\n-- Menu ---");
             System.out.println("1. Add session");
@@ -25,9 +148,12 @@ public class HurlingTrackerApp {
             System.out.println("5. Weekly stats (Last 7 days)");
             System.out.println("6. Set Targets");
             System.out.println("7. Delete session");
-            System.out.println("8. Delete session");
+            System.out.println("8. Edit session");
             System.out.println("9. Print weekly report");
-            System.out.println("10. Exit");
+            System.out.println("10. Metrics");
+            System.out.println("11. Workload (ACWR, last 28 days)");
+            System.out.println("12. Search notes");
+            System.out.println("13. Exit");
             System.out.print("> ");
 
             String choice = scanner.nextLine().trim();
@@ -42,8 +168,11 @@ public class HurlingTrackerApp {
                 case "7" -> deleteSession(scanner, tracker);
                 case "8" -> editSession(scanner, tracker);
                 case "9" -> printWeeklyReport(tracker);
-                case "10" -> {
-                    tracker.save();
+                case "10", "metrics" -> System.out.println("\n" + Metrics.report());
+                case "11" -> printWorkload(tracker);
+                case "12", "search" -> searchNotes(scanner, tracker);
+                case "13" -> {
+                    tracker.flush();
                     System.out.println("Saved. Exiting.");
                     return;
                 }
@@ -103,7 +232,10 @@ public class HurlingTrackerApp {
                 int drillId = tracker.nextDrillId();
                 DrillEntry drill = DrillEntry.create(drillId, session.id(), drillType, reps, success, notes);
                 
-                tracker.addDrill(drill);
+                if (!tracker.addDrill(drill)) {
+                    System.out.println("Session " + session.id() + " no longer exists.");
+                    return;
+                }
                 tracker.save();
 
                 System.out.println("Added drill:\n" + drill.neat());
@@ -282,6 +414,40 @@ public class HurlingTrackerApp {
     }
          
 
+    private static void printWorkload(TrackerService tracker) {
+        LocalDate to = LocalDate.now();
+        List<WorkloadSeries.Day> days = tracker.getWorkload(to.minusDays(WorkloadSeries.CHRONIC_DAYS - 1), to);
+        WorkloadSeries.Day today = days.get(days.size() - 1);
+
+        System.out.println("\nWorkload today (" + to + ")");
+        System.out.println("Acute load (7 days):    " + today.acute());
+        System.out.println("Chronic load (28 days): " + today.chronic());
+        System.out.printf("ACWR: %.2f   EWMA ACWR: %.2f%s%n", today.acwr(), today.ewmaAcwr(),
+            today.spike() ? "   SPIKE (over " + WorkloadSeries.SPIKE_RATIO + ")" : "");
+        System.out.println();
+        System.out.printf("%-12s %6s %7s %8s %6s %6s%n", "Date", "Load", "Acute", "Chronic", "ACWR", "EWMA");
+        for (WorkloadSeries.Day d : days) {
+            System.out.printf("%-12s %6d %7d %8d %6.2f %6.2f%s%n", d.date(), d.load(), d.acute(), d.chronic(),
+                d.acwr(), d.ewmaAcwr(), d.spike() ? "  <- spike" : "");
+        }
+    }
+
+    private static void searchNotes(Scanner scanner, TrackerService tracker) {
+        System.out.print("Words to find (all must match, end a word with * for a prefix, e.g. hamstr*): ");
+        String query = scanner.nextLine().trim();
+        if (query.isEmpty()) return;
+
+        List<TrackerService.NoteMatch> matches = tracker.searchNotes(query, SEARCH_LIMIT);
+        if (matches.isEmpty()) {
+            System.out.println("No notes match.");
+            return;
+        }
+        System.out.println("\nNewest " + matches.size() + " match" + (matches.size() == 1 ? "" : "es") + ":");
+        for (TrackerService.NoteMatch m : matches) {
+            System.out.println(m.neatOneLine());
+        }
+    }
+
          private static LocalDate readDate(Scanner scanner) {
             System.out.print("Date (YYYY-MM-DD) or blank for today: ");
             String s = scanner.nextLine().trim();
@@ -1,37 +1,64 @@
 import javafx.application.Application;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HurlingTrackerFX extends Application{
+    private static final int SEARCH_LIMIT = 200;
 
     private TrackerService tracker;
-    private final ObservableList<TrainingSession> sessionData = FXCollections.observableArrayList();
+    private PagedSessionList sessionData;
     private final ObservableList<DrillEntry> drillData = FXCollections.observableArrayList();
 
     private ListView<TrainingSession> sessionsListView;
     private ListView<DrillEntry> drillsListView;
     private TextArea statsArea;
+    private TextArea metricsArea;
+    private TrendChartView trendView;
+    private final ObservableList<TrackerService.NoteMatch> searchResults = FXCollections.observableArrayList();
+    private Task<List<TrackerService.NoteMatch>> searchTask;
+
+    // Stats are built off the FX thread; a newer refresh cancels and replaces the running one.
+    // Search, trends and metrics each get their own thread, so none of them queues behind another.
+    private final ExecutorService statsExecutor = backgroundThread("stats-refresh");
+    private final ExecutorService searchExecutor = backgroundThread("notes-search");
+    private final ExecutorService trendExecutor = backgroundThread("trend-sampling");
+    private final ExecutorService metricsExecutor = backgroundThread("metrics-report");
+    private Task<String> statsTask;
+
+    private static ExecutorService backgroundThread(String name) {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
 
     @Override
     public void start(Stage stage) {
-        CsvStorage storage = new CsvStorage("sessions.csv", "drills.csv", "targets.csv");
-        tracker = new TrackerService(storage);
-        tracker.load();
+        tracker = TrackerFactory.open(Paths.get(""));
         
-        refreshSessions();
+        sessionData = new PagedSessionList(tracker);
 
         TabPane tabs = new TabPane();
         tabs.getTabs().add(makeSessionsTab());
         tabs.getTabs().add(makeDrillsTab());
         tabs.getTabs().add(makeStatsTab());
+        tabs.getTabs().add(makeTrendsTab());
+        tabs.getTabs().add(makeSearchTab());
+        tabs.getTabs().add(makeMetricsTab());
 
         stage.setTitle("Hurling Training Tracker");
         stage.setScene(new Scene(tabs, 980, 560));
@@ -117,7 +144,7 @@ public class HurlingTrackerFX extends Application{
 
                 tracker.addSession(s);
                 tracker.save();
-                refreshSessions();
+                sessionData.sessionAdded(s);
                 refreshStats();
 
                 minutesField.clear();
@@ -144,10 +171,11 @@ public class HurlingTrackerFX extends Application{
             Optional<ButtonType> res = confirm.showAndWait();
             if (res.isEmpty() || res.get() != ButtonType.OK) return;
 
+            int index = sessionData.indexOf(selected);
             boolean ok = tracker.deleteSession(selected.id());
             if (ok) {
                 tracker.save();
-                refreshSessions();
+                sessionData.sessionRemoved(index, selected);
                 drillData.clear();
                 refreshStats();
                 status.setText("Deleted session ID " + selected.id());
@@ -248,7 +276,10 @@ public class HurlingTrackerFX extends Application{
                 int drillId = tracker.nextDrillId();
                 DrillEntry d = DrillEntry.create(drillId, selectedSession.id(), drillType, reps, success, notes);
                 
-                tracker.addDrill(d);
+                if (!tracker.addDrill(d)) {
+                    status.setText("Session " + selectedSession.id() + " no longer exists.");
+                    return;
+                }
                 tracker.save();
                 
                 refreshDrills(selectedSession.id());
@@ -287,21 +318,179 @@ public class HurlingTrackerFX extends Application{
         return tab;
     }
 
-    private void refreshSessions() {
-        sessionData.setAll(tracker.getLastSessions(200));
+    private Tab makeTrendsTab() {
+        Tab tab = new Tab("Trends");
+        tab.setClosable(false);
+
+        trendView = TrendChartView.create(tracker, trendExecutor);
+        // Sessions can only change on other tabs, so coming back is when the chart may be out of date.
+        tab.setOnSelectionChanged(e -> {
+            if (tab.isSelected()) trendView.refresh();
+        });
+
+        tab.setContent(trendView);
+        return tab;
+    }
+
+    private Tab makeSearchTab() {
+        Tab tab = new Tab("Search");
+        tab.setClosable(false);
+
+        TextField queryField = new TextField();
+        queryField.setPromptText("Search notes, e.g. hamstring, left side, hamstr*");
+
+        ListView<TrackerService.NoteMatch> resultsView = new ListView<>(searchResults);
+        resultsView.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(TrackerService.NoteMatch item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? "" : item.neatOneLine());
+            }
+        });
+
+        TextArea details = new TextArea();
+        details.setEditable(false);
+        details.setPrefWidth(360);
+        resultsView.getSelectionModel().selectedItemProperty().addListener((obs, oldV, newV) ->
+            details.setText(newV == null ? "" : newV.session().neat()
+                + (newV.drill() == null ? "" : "\n\nMatched drill:\n" + newV.drill().neat())));
+
+        Label status = new Label("Every word must match; end one with * to match the start of a word.");
+        // Searches as you type; each keystroke replaces the search still running.
+        queryField.textProperty().addListener((obs, oldV, newV) -> search(newV, status));
+        tab.setOnSelectionChanged(e -> {
+            if (tab.isSelected()) search(queryField.getText(), status);
+        });
+
+        BorderPane root = new BorderPane();
+        root.setPadding(new Insets(10));
+        root.setTop(new VBox(6, queryField, status));
+        root.setCenter(resultsView);
+        root.setRight(details);
+        BorderPane.setMargin(resultsView, new Insets(10, 10, 0, 0));
+        BorderPane.setMargin(details, new Insets(10, 0, 0, 0));
+
+        tab.setContent(root);
+        return tab;
+    }
+
+    private void search(String query, Label status) {
+        if (searchTask != null) searchTask.cancel();
+        if (query == null || query.isBlank()) {
+            searchTask = null;
+            searchResults.clear();
+            return;
+        }
+
+        Task<List<TrackerService.NoteMatch>> task = new Task<>() {
+            @Override
+            protected List<TrackerService.NoteMatch> call() {
+                return tracker.searchNotes(query, SEARCH_LIMIT);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (searchTask != task) return;
+            TrackerEvents.UiRefresh event = new TrackerEvents.UiRefresh();
+            event.begin();
+            searchResults.setAll(task.getValue());
+            event.view = "search";
+            event.rows = searchResults.size();
+            event.commit();
+            status.setText(searchResults.isEmpty() ? "No notes match."
+                : searchResults.size() == SEARCH_LIMIT ? "Newest " + SEARCH_LIMIT + " matches." : searchResults.size() + " matches.");
+        });
+        task.setOnFailed(e -> {
+            if (searchTask == task) status.setText("Search failed: " + task.getException().getMessage());
+        });
+
+        searchTask = task;
+        searchExecutor.submit(task);
+    }
+
+    private Tab makeMetricsTab() {
+        Tab tab = new Tab("Metrics");
+        tab.setClosable(false);
+
+        metricsArea = new TextArea();
+        metricsArea.setEditable(false);
+        metricsArea.setWrapText(false);
+        metricsArea.setStyle("-fx-font-family: monospace;");
+
+        Button refreshBtn = new Button("Refresh");
+        refreshBtn.setOnAction(e -> refreshMetrics());
+        tab.setOnSelectionChanged(e -> {
+            if (tab.isSelected()) refreshMetrics();
+        });
+
+        VBox root = new VBox(10, refreshBtn, metricsArea);
+        root.setPadding(new Insets(10));
+        VBox.setVgrow(metricsArea, Priority.ALWAYS);
+
+        tab.setContent(root);
+        return tab;
+    }
+
+    /** Built off the FX thread like the stats, but on a thread of its own so it never waits behind them. */
+    private void refreshMetrics() {
+        Task<String> task = new Task<>() {
+            @Override
+            protected String call() {
+                return Metrics.report();
+            }
+        };
+        task.setOnSucceeded(e -> metricsArea.setText(task.getValue()));
+        task.setOnFailed(e -> metricsArea.setText("Couldn't read metrics: " + task.getException().getMessage()));
+        metricsExecutor.submit(task);
     }
 
     private void refreshDrills(int sessionId) {
+        TrackerEvents.UiRefresh event = new TrackerEvents.UiRefresh();
+        event.begin();
         drillData.setAll(tracker.getDrillsForSession(sessionId));
+        event.view = "drills";
+        event.rows = drillData.size();
+        event.commit();
     }
 
     private void refreshStats() {
+        if (statsTask != null) statsTask.cancel();
+
         LocalDate to = LocalDate.now();
         LocalDate from = to.minusDays(6);
 
-        TrackerService.WeeklyStats stats = tracker.getWeeklyStats(from, to);
-        Targets targets = tracker.getTargets();
+        Task<String> task = new Task<>() {
+            @Override
+            protected String call() {
+                TrackerEvents.UiRefresh event = new TrackerEvents.UiRefresh();
+                event.begin();
+                TrackerService.WeeklyStats stats = tracker.getWeeklyStats(from, to);
+                if (isCancelled()) return null;
+                List<WorkloadSeries.Day> workload = tracker.getWorkload(to.minusDays(WorkloadSeries.CHRONIC_DAYS - 1), to);
+                String report = buildStatsReport(from, to, stats, tracker.getTargets()) + buildWorkloadReport(workload);
+                event.view = "stats (background)";
+                event.rows = stats.sessionCount();
+                event.commit();
+                return report;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (statsTask != task) return;
+            TrackerEvents.UiRefresh event = new TrackerEvents.UiRefresh();
+            event.begin();
+            statsArea.setText(task.getValue());
+            event.view = "stats";
+            event.commit();
+        });
+        task.setOnFailed(e -> {
+            if (statsTask == task) statsArea.setText("Couldn't compute stats: " + task.getException().getMessage());
+        });
+
+        statsTask = task;
+        statsArea.setText("Computing...");
+        statsExecutor.submit(task);
+    }
 
+    private static String buildStatsReport(LocalDate from, LocalDate to, TrackerService.WeeklyStats stats, Targets targets) {
         int gymMinutes = stats.minutesByType()[SessionType.GYM.ordinal()];
         int wallBallReps = stats.repsByDrill()[DrillType.WALL_BALL.ordinal()];
 
@@ -334,9 +523,40 @@ public class HurlingTrackerFX extends Application{
         }
         if (!any) sb.append("- (none)\n");
 
-        statsArea.setText(sb.toString());
+        return sb.toString();
     }
    
+    private static String buildWorkloadReport(List<WorkloadSeries.Day> days) {
+        WorkloadSeries.Day today = days.get(days.size() - 1);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("\nWORKLOAD (acute 7 days : chronic 28 days)\n");
+        sb.append("-----------------------------------\n");
+        sb.append("Acute load:   ").append(today.acute()).append("\n");
+        sb.append("Chronic load: ").append(today.chronic()).append("\n");
+        sb.append(String.format("ACWR: %.2f   EWMA ACWR: %.2f%n", today.acwr(), today.ewmaAcwr()));
+        if (today.spike()) sb.append("!! Load spike: ratio over ").append(WorkloadSeries.SPIKE_RATIO).append("\n");
+
+        sb.append("\nSpike days (last 28):\n");
+        boolean any = false;
+        for (WorkloadSeries.Day d : days) {
+            if (!d.spike()) continue;
+            any = true;
+            sb.append(String.format("- %s: ACWR %.2f, EWMA %.2f%n", d.date(), d.acwr(), d.ewmaAcwr()));
+        }
+        if (!any) sb.append("- (none)\n");
+        return sb.toString();
+    }
+
+    @Override
+    public void stop() {
+        statsExecutor.shutdownNow();
+        searchExecutor.shutdownNow();
+        trendExecutor.shutdownNow();
+        metricsExecutor.shutdownNow();
+        if (tracker != null) tracker.flush();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
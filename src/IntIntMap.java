@@ -0,0 +1,107 @@
+/**
+ * Open-addressing int -> int hash map. Used for id -> row lookups so the
+ * column stores don't box every key and value.
+ */
+public class IntIntMap {
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+
+    public IntIntMap() {
+        this(16);
+    }
+
+    public IntIntMap(int expected) {
+        int cap = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        allocate(cap);
+    }
+
+    /** Approximate heap bytes held by the arrays. */
+    public long footprintBytes() {
+        return (long) keys.length * 4 + (long) values.length * 4 + used.length;
+    }
+
+    private void allocate(int cap) {
+        keys = new int[cap];
+        values = new int[cap];
+        used = new boolean[cap];
+        mask = cap - 1;
+        size = 0;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        allocate(16);
+    }
+
+    public int get(int key, int missing) {
+        for (int i = hash(key) & mask; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+        }
+        return missing;
+    }
+
+    public boolean containsKey(int key) {
+        for (int i = hash(key) & mask; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) return true;
+        }
+        return false;
+    }
+
+    public void put(int key, int value) {
+        int i = hash(key) & mask;
+        for (; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        used[i] = true;
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) grow();
+    }
+
+    public int remove(int key, int missing) {
+        int i = hash(key) & mask;
+        for (; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) break;
+        }
+        if (!used[i]) return missing;
+
+        int removed = values[i];
+        // Backward-shift delete: pull later entries of the probe run into the gap.
+        int gap = i;
+        for (int j = (gap + 1) & mask; used[j]; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            boolean stays = gap <= j ? (gap < home && home <= j) : (gap < home || home <= j);
+            if (stays) continue;
+            keys[gap] = keys[j];
+            values[gap] = values[j];
+            gap = j;
+        }
+        used[gap] = false;
+        size--;
+        return removed;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
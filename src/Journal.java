@@ -0,0 +1,230 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of mutations. Each record is "<op>,<csv fields>" and is replayed
+ * on top of the CSV snapshot at load. When the log gets long it is rotated to a
+ * ".compacting" segment while the snapshot files are rewritten in the background.
+ * Records written by appendAtomically() sit between BEGIN and COMMIT markers and
+ * are only replayed if the COMMIT made it to disk.
+ *
+ * flush() fsyncs, so a record is durable once the save that follows it returns.
+ * A record torn by a crash mid-write is dropped at replay and cut off the file,
+ * so the next append starts on a fresh line.
+ */
+public class Journal {
+    public static final char SESSION = 'S';
+    public static final char DELETE_SESSION = 'X';
+    public static final char DRILL = 'D';
+    public static final char TARGETS = 'T';
+    public static final char BEGIN = 'B';
+    public static final char COMMIT = 'C';
+    public static final char ABORT = 'A';
+
+    private final Path path;
+    private final Path rotatedPath;
+    private FileChannel channel;
+    private CsvWriter out;
+    private int records;
+
+    public Journal(String file) {
+        this.path = Paths.get(file);
+        this.rotatedPath = Paths.get(file + ".compacting");
+    }
+
+    /**
+     * Replays the rotated segment (if a compaction didn't finish) then the live one.
+     * The handler sees each record with the op in field 0 and the payload from field 1.
+     */
+    public synchronized void replay(Consumer<CsvReader> handler) {
+        replayFile(rotatedPath, handler);
+        records = replayFile(path, handler);
+    }
+
+    private int replayFile(Path file, Consumer<CsvReader> handler) {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        close();
+        String text;
+        try {
+            // Decoded leniently: a crash can cut a multi-byte character in half.
+            text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading journal " + file + ": " + e.getMessage(), e);
+        }
+        int count = 0;
+        // Chars up to the end of the last record that was replayed (or held in a batch).
+        long whole = 0;
+        // Records of an open batch, re-encoded because the reader reuses its buffer.
+        List<String> batch = null;
+        CsvReader r = new CsvReader(new StringReader(text));
+        // Only a record nextWhole() turns down counts as torn. One the handler throws on was
+        // written out in full, so the failure goes to the caller and the file is left alone.
+        while (nextWhole(r, text)) {
+            char op = r.getChar(0);
+            if (op == BEGIN) {
+                batch = new ArrayList<>();
+            } else if (op == ABORT) {
+                batch = null;
+            } else if (op == COMMIT && batch != null) {
+                for (String line : batch) handler.accept(CsvReader.ofLine(line));
+                count += batch.size();
+                batch = null;
+            } else if (batch != null) {
+                batch.add(copy(r));
+            } else {
+                handler.accept(r);
+                count++;
+            }
+            whole = r.position();
+        }
+        // A batch without its COMMIT was cut off by a crash and is dropped whole. It is
+        // closed on disk too, or later appends would be taken as part of it next time.
+        truncate(file, text, whole);
+        if (batch != null) abortBatch(file);
+        return count;
+    }
+
+    /**
+     * Moves to the next record if it was written out in full. A record torn by a
+     * crash is the last one and lacks its line break, or leaves a quote open.
+     */
+    private static boolean nextWhole(CsvReader r, String text) {
+        try {
+            if (!r.next()) return false;
+        } catch (RuntimeException e) {
+            return false;
+        }
+        long end = r.position();
+        return end > 0 && text.charAt((int) end - 1) == '\n';
+    }
+
+    /** Cuts everything after the first keepChars chars off the file. */
+    private static void truncate(Path file, String text, long keepChars) {
+        if (keepChars >= text.length()) return;
+        long keepBytes = text.substring(0, (int) keepChars).getBytes(StandardCharsets.UTF_8).length;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(keepBytes);
+            ch.force(true);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed truncating journal " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void abortBatch(Path file) {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ch.write(StandardCharsets.UTF_8.encode(ABORT + "\n"));
+            ch.force(true);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing to " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    public synchronized void append(char op, Consumer<CsvWriter> payload) {
+        try {
+            if (out == null) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                out = new CsvWriter(new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8)));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing to " + path + ": " + e.getMessage(), e);
+        }
+        out.field(op);
+        payload.accept(out);
+        out.endRecord();
+        records++;
+    }
+
+    /**
+     * Writes the records appended by {@code records} as one unit: on replay they
+     * apply together or, if the COMMIT marker never reached the disk, not at all.
+     */
+    public synchronized void appendAtomically(Runnable records) {
+        append(BEGIN, w -> {});
+        try {
+            records.run();
+        } catch (RuntimeException e) {
+            // Best effort, so records appended after this aren't taken as part of the batch.
+            try {
+                append(ABORT, w -> {});
+            } catch (RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        append(COMMIT, w -> {});
+    }
+
+    private static String copy(CsvReader r) {
+        return CsvWriter.line(w -> {
+            for (int i = 0; i < r.fieldCount(); i++) w.field(r.getString(i));
+        });
+    }
+
+    /** Writes out buffered records and fsyncs them. */
+    public synchronized void flush() {
+        if (out == null) return;
+        out.flush();
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed syncing " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    public synchronized int size() {
+        return records;
+    }
+
+    /**
+     * Moves the live log aside so new records start a fresh file. If an earlier
+     * compaction never finished, the live records are appended to its segment instead.
+     */
+    public synchronized void rotate() {
+        try {
+            close();
+            if (!Files.exists(path)) return;
+            if (Files.exists(rotatedPath)) {
+                Files.write(rotatedPath, Files.readAllBytes(path), StandardOpenOption.APPEND);
+                Files.delete(path);
+            } else {
+                Files.move(path, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+            records = 0;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed rotating journal " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /** Called once the snapshot files cover everything in the rotated segment. */
+    public void dropRotated() {
+        try {
+            Files.deleteIfExists(rotatedPath);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed deleting " + rotatedPath + ": " + e.getMessage(), e);
+        }
+    }
+
+    public synchronized void close() {
+        if (out == null) return;
+        try {
+            flush();
+        } finally {
+            try {
+                out.close();
+            } finally {
+                out = null;
+                channel = null;
+            }
+        }
+    }
+}
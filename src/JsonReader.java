@@ -0,0 +1,147 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses one flat JSON object, e.g. {"date":"2024-05-01","minutes":60}, into
+ * field name to text. Strings are unescaped, numbers and booleans are kept as
+ * written, and null fields are left out. The only nesting allowed is an array
+ * of flat objects one level down, e.g. a session's "drills" in an import file.
+ */
+public class JsonReader {
+    private final String s;
+    private int pos;
+
+    private JsonReader(String s) {
+        this.s = s;
+    }
+
+    public static Map<String, String> parseObject(String json) {
+        return parseObject(json, null);
+    }
+
+    /** As parseObject(json), but fields holding an array of flat objects are put in arrays. */
+    public static Map<String, String> parseObject(String json, Map<String, List<Map<String, String>>> arrays) {
+        JsonReader r = new JsonReader(json);
+        Map<String, String> out = r.object(arrays);
+        r.skipSpace();
+        if (r.pos != json.length()) throw r.error("Unexpected trailing text");
+        return out;
+    }
+
+    /** The field's text, or an IllegalArgumentException naming the missing field. */
+    public static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null) throw new IllegalArgumentException("Missing field: " + name);
+        return value;
+    }
+
+    private Map<String, String> object(Map<String, List<Map<String, String>>> arrays) {
+        Map<String, String> out = new HashMap<>();
+        skipSpace();
+        expect('{');
+        skipSpace();
+        if (peek() == '}') {
+            pos++;
+            return out;
+        }
+        while (true) {
+            skipSpace();
+            String name = string();
+            skipSpace();
+            expect(':');
+            skipSpace();
+            if (arrays != null && peek() == '[') {
+                arrays.put(name, array());
+            } else {
+                String value = value();
+                if (value != null) out.put(name, value);
+            }
+            skipSpace();
+            char c = next();
+            if (c == '}') return out;
+            if (c != ',') throw error("Expected , or }");
+        }
+    }
+
+    private List<Map<String, String>> array() {
+        List<Map<String, String>> out = new ArrayList<>();
+        expect('[');
+        skipSpace();
+        if (peek() == ']') {
+            pos++;
+            return out;
+        }
+        while (true) {
+            out.add(object(null));
+            skipSpace();
+            char c = next();
+            if (c == ']') return out;
+            if (c != ',') throw error("Expected , or ]");
+            skipSpace();
+        }
+    }
+
+    private String value() {
+        char c = peek();
+        if (c == '"') return string();
+        if (c == '{' || c == '[') throw error("Nested values are not supported");
+        int start = pos;
+        while (pos < s.length() && ",}] \t\r\n".indexOf(s.charAt(pos)) < 0) pos++;
+        String literal = s.substring(start, pos);
+        if (literal.isEmpty()) throw error("Expected a value");
+        return literal.equals("null") ? null : literal;
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char e = next();
+            switch (e) {
+                case '"', '\\', '/' -> sb.append(e);
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    if (pos + 4 > s.length()) throw error("Bad \\u escape");
+                    sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                    pos += 4;
+                }
+                default -> throw error("Bad escape \\" + e);
+            }
+        }
+    }
+
+    private void skipSpace() {
+        while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+    }
+
+    private char peek() {
+        if (pos >= s.length()) throw error("Unexpected end of JSON");
+        return s.charAt(pos);
+    }
+
+    private char next() {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    private void expect(char c) {
+        if (next() != c) throw error("Expected " + c);
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + pos + " in JSON");
+    }
+}
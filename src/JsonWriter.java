@@ -0,0 +1,150 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Streaming JSON writer, the JSON counterpart of CsvWriter. Values go straight
+ * to the underlying Writer, so a long array can be sent while it is produced.
+ * Commas are placed automatically; callers only open, name and close.
+ */
+public class JsonWriter implements AutoCloseable {
+    private final Writer out;
+    private boolean needComma;
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    /** Renders one value to a String. */
+    public static String string(Consumer<JsonWriter> value) {
+        StringWriter sw = new StringWriter(128);
+        value.accept(new JsonWriter(sw));
+        return sw.toString();
+    }
+
+    public JsonWriter beginObject() {
+        separator();
+        write('{');
+        needComma = false;
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        write('}');
+        needComma = true;
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        separator();
+        write('[');
+        needComma = false;
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        write(']');
+        needComma = true;
+        return this;
+    }
+
+    public JsonWriter name(String name) {
+        separator();
+        quoted(name);
+        write(':');
+        needComma = false;
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separator();
+        write(Long.toString(value));
+        needComma = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        separator();
+        if (value == null) {
+            write("null");
+        } else {
+            quoted(value);
+        }
+        needComma = true;
+        return this;
+    }
+
+    public JsonWriter value(Enum<?> value) {
+        return value(value.name());
+    }
+
+    public JsonWriter value(LocalDate value) {
+        return value(value.toString());
+    }
+
+    public JsonWriter value(int[] values) {
+        beginArray();
+        for (int v : values) value(v);
+        return endArray();
+    }
+
+    private void separator() {
+        if (needComma) write(',');
+    }
+
+    private void quoted(String s) {
+        write('"');
+        int from = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            write(s.substring(from, i));
+            switch (c) {
+                case '"' -> write("\\\"");
+                case '\\' -> write("\\\\");
+                case '\n' -> write("\\n");
+                case '\r' -> write("\\r");
+                case '\t' -> write("\\t");
+                default -> write(String.format("\\u%04x", (int) c));
+            }
+            from = i + 1;
+        }
+        write(s.substring(from));
+        write('"');
+    }
+
+    private void write(char c) {
+        try {
+            out.write(c);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing JSON: " + e.getMessage(), e);
+        }
+    }
+
+    private void write(String s) {
+        try {
+            out.write(s);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing JSON: " + e.getMessage(), e);
+        }
+    }
+
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing JSON: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed closing JSON: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Largest-Triangle-Three-Buckets downsampling (Steinarsson, 2013) for evenly
+ * spaced series such as one value per day. The points between the first and
+ * last are split into equal buckets, and from each bucket the point forming the
+ * largest triangle with the point picked before it and the average of the next
+ * bucket is kept. Peaks and dips survive, unlike plain averaging or striding,
+ * so a chart of a few hundred points looks like the full series. O(n).
+ */
+public final class Lttb {
+    private Lttb() {}
+
+    /** Indexes of the points to keep, ascending, at most threshold of them; every index when the series is shorter. */
+    public static int[] select(long[] values, int threshold) {
+        int n = values.length;
+        if (threshold >= n || threshold < 3) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) all[i] = i;
+            return all;
+        }
+
+        int[] picked = new int[threshold];
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        picked[0] = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket, or just the last point for the final bucket.
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += i;
+                avgY += values[i];
+            }
+            avgX /= nextEnd - nextStart;
+            avgY /= nextEnd - nextStart;
+
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int best = start;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle's area; only the comparison matters.
+                double area = Math.abs((a - avgX) * (values[i] - values[a]) - (a - i) * (avgY - values[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    best = i;
+                }
+            }
+            picked[bucket + 1] = best;
+            a = best;
+        }
+        picked[threshold - 1] = n - 1;
+        return picked;
+    }
+}
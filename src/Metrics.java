@@ -0,0 +1,225 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide counters, gauges and latency histograms, keyed by name.
+ * Hot paths keep their Counter/Histogram in a static field, so recording is a
+ * LongAdder or an atomic array increment rather than a map lookup.
+ *
+ * With -Dtracker.metrics.file=<path> a JSON line with every metric is
+ * appended to that file each -Dtracker.metrics.intervalMs (default 60000).
+ */
+public final class Metrics {
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> GAUGES = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService dumper;
+
+    private Metrics() {}
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /** A histogram of nanosecond durations. */
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /** A value read when the metrics are reported. Registering the same name again replaces it. */
+    public static void gauge(String name, LongSupplier value) {
+        GAUGES.put(name, value);
+    }
+
+    /** Rough heap size of a String: header, array and its Latin-1 or UTF-16 chars, 8-byte aligned. */
+    public static long stringBytes(String s) {
+        if (s == null || s.isEmpty()) return 0;
+        long chars = s.chars().allMatch(c -> c < 256) ? s.length() : 2L * s.length();
+        return 24 + ((16 + chars + 7) & ~7L);
+    }
+
+    public static final class Counter {
+        private final LongAdder adder = new LongAdder();
+
+        private Counter() {}
+
+        public void increment() {
+            adder.increment();
+        }
+
+        public void add(long n) {
+            adder.add(n);
+        }
+
+        public long get() {
+            return adder.sum();
+        }
+    }
+
+    /**
+     * Log-linear buckets: exact below 8, then 8 buckets per power of two, so any
+     * percentile is within 12.5% of the true value. Recording is one atomic
+     * increment plus the max; there is no locking and no allocation.
+     */
+    public static final class Histogram {
+        private static final int SUB_BUCKETS = 8;
+        private static final int SUB_BITS = 3;
+        private static final int BUCKETS = SUB_BUCKETS + (64 - SUB_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private Histogram() {}
+
+        /** Times from startNanos, taken from System.nanoTime(), to now. */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public void record(long nanos) {
+            long v = Math.max(0, nanos);
+            counts.incrementAndGet(bucket(v));
+            total.increment();
+            max.accumulate(v);
+        }
+
+        public long count() {
+            return total.sum();
+        }
+
+        public long max() {
+            return max.get();
+        }
+
+        /** The upper edge of the bucket holding the p-th fraction of values, e.g. 0.99; capped at max. */
+        public long percentile(double p) {
+            long[] snapshot = new long[BUCKETS];
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                n += snapshot[i];
+            }
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(p * n));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) return Math.min(upperEdge(i), max());
+            }
+            return max();
+        }
+
+        private static int bucket(long v) {
+            if (v < SUB_BUCKETS) return (int) v;
+            int exp = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return SUB_BUCKETS + (exp - SUB_BITS) * SUB_BUCKETS + sub;
+        }
+
+        private static long upperEdge(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int exp = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+            long sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+            long edge = (SUB_BUCKETS + sub + 1) << (exp - SUB_BITS);
+            return edge <= 0 ? Long.MAX_VALUE : edge - 1;
+        }
+    }
+
+    /** Every metric as a text table, sorted by name; latencies in milliseconds. */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-28s %10s %10s %10s %10s%n", "LATENCY (ms)", "count", "p50", "p99", "max"));
+        for (Map.Entry<String, Histogram> e : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            Histogram h = e.getValue();
+            sb.append(String.format("%-28s %10d %10.3f %10.3f %10.3f%n", e.getKey(), h.count(),
+                millis(h.percentile(0.5)), millis(h.percentile(0.99)), millis(h.max())));
+        }
+        sb.append(String.format("%n%-28s %10s%n", "COUNTER", "value"));
+        for (Map.Entry<String, Counter> e : new TreeMap<>(COUNTERS).entrySet()) {
+            sb.append(String.format("%-28s %10d%n", e.getKey(), e.getValue().get()));
+        }
+        sb.append(String.format("%n%-28s %10s%n", "GAUGE", "value"));
+        for (Map.Entry<String, LongSupplier> e : new TreeMap<>(GAUGES).entrySet()) {
+            sb.append(String.format("%-28s %10d%n", e.getKey(), e.getValue().getAsLong()));
+        }
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /** One JSON object; latencies in nanoseconds. */
+    public static void writeJson(JsonWriter w) {
+        w.beginObject().name("time").value(Instant.now().toString());
+        w.name("histograms").beginObject();
+        for (Map.Entry<String, Histogram> e : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            Histogram h = e.getValue();
+            w.name(e.getKey()).beginObject()
+                .name("count").value(h.count())
+                .name("p50").value(h.percentile(0.5))
+                .name("p99").value(h.percentile(0.99))
+                .name("max").value(h.max())
+                .endObject();
+        }
+        w.endObject();
+        w.name("counters").beginObject();
+        for (Map.Entry<String, Counter> e : new TreeMap<>(COUNTERS).entrySet()) {
+            w.name(e.getKey()).value(e.getValue().get());
+        }
+        w.endObject();
+        w.name("gauges").beginObject();
+        for (Map.Entry<String, LongSupplier> e : new TreeMap<>(GAUGES).entrySet()) {
+            w.name(e.getKey()).value(e.getValue().getAsLong());
+        }
+        w.endObject().endObject();
+    }
+
+    /** Starts the periodic dump if -Dtracker.metrics.file is set. Safe to call more than once. */
+    public static synchronized void startDumpFromProperties() {
+        String file = System.getProperty("tracker.metrics.file");
+        if (file == null || dumper != null) return;
+        long interval = Long.getLong("tracker.metrics.intervalMs", 60_000);
+        Path path = Paths.get(file);
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleWithFixedDelay(() -> {
+            try {
+                dump(path);
+            } catch (RuntimeException e) {
+                System.err.println("Metrics dump failed: " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /** Appends one JSON line with every metric. */
+    public static void dump(Path file) {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writeJson(new JsonWriter(out));
+            out.newLine();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing metrics to " + file + ": " + e.getMessage(), e);
+        }
+    }
+}
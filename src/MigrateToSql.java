@@ -0,0 +1,29 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * One-shot copy of the CSV data (with any journal replayed on top) into the
+ * embedded database. Usage: {@code java MigrateToSql [dataDir] [jdbcUrl]}.
+ * Existing rows in the database are replaced.
+ */
+public class MigrateToSql {
+    public static void main(String[] args) {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "");
+        String url = args.length > 1 ? args[1] : System.getProperty("tracker.db", "jdbc:sqlite:" + dir.resolve("tracker.db"));
+
+        TrackerService source = new TrackerService(TrackerFactory.csvStorage(dir),
+            new Journal(dir.resolve("journal.log").toString()),
+            new BinarySnapshot(dir.resolve("tracker.snap").toString()));
+        source.load();
+        try {
+            long start = System.nanoTime();
+            try (SqlStorage target = new SqlStorage(url)) {
+                source.exportTo(target);
+            }
+            System.out.printf("Copied %d sessions into %s in %d ms%n",
+                source.sessionCount(), url, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            source.close();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over session and drill notes: for every word, the notes that
+ * contain it. Words are runs of letters and digits, lower-cased. Each posting
+ * is a long key packing the entry's date, whether it is a drill, and its id, and
+ * each word's postings are kept sorted, so matches come out by date and a
+ * search for the newest n stops after n hits.
+ *
+ * Adds and removes keep the lists sorted with a binary search and a shift.
+ * Like DailyAggregates, after a clear() adds are only appended and refresh()
+ * sorts every list once, so a bulk load stays O(n log n).
+ */
+public class NotesIndex {
+    // TreeMap entry, Postings header and array header, not counting the word or the keys.
+    private static final long TERM_BYTES = 40 + 24 + 16;
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private boolean bulk = true;
+    // Kept up to date on every add and remove, so footprintBytes() needn't walk the terms.
+    private long bytes;
+
+    /** The key a note is filed under: date first, then sessions before drills, then id. */
+    public static long key(long epochDay, boolean drill, int id) {
+        return (epochDay << 32) | (drill ? 1L << 31 : 0) | (id & 0x7FFFFFFFL);
+    }
+
+    public static long epochDay(long key) {
+        return key >> 32;
+    }
+
+    public static boolean isDrill(long key) {
+        return (key & (1L << 31)) != 0;
+    }
+
+    public static int id(long key) {
+        return (int) (key & 0x7FFFFFFFL);
+    }
+
+    public void clear() {
+        terms.clear();
+        bytes = 0;
+        bulk = true;
+    }
+
+    public void add(long key, String notes) {
+        for (String word : words(notes)) {
+            Postings postings = terms.get(word);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(word, postings);
+                bytes += TERM_BYTES + Metrics.stringBytes(word) + (long) postings.keys.length * 8;
+            }
+            int capacity = postings.keys.length;
+            postings.add(key, bulk);
+            bytes += (long) (postings.keys.length - capacity) * 8;
+        }
+    }
+
+    public void remove(long key, String notes) {
+        for (String word : words(notes)) {
+            Postings postings = terms.get(word);
+            if (postings == null) continue;
+            postings.remove(key, bulk);
+            if (postings.size == 0) {
+                terms.remove(word);
+                bytes -= TERM_BYTES + Metrics.stringBytes(word) + (long) postings.keys.length * 8;
+            }
+        }
+    }
+
+    /** Sorts the lists appended to since a clear(). Call after updates, before searching. */
+    public void refresh() {
+        if (!bulk) return;
+        for (Postings postings : terms.values()) postings.sort();
+        bulk = false;
+    }
+
+    /**
+     * Keys of the newest notes matching every word of the query, newest first,
+     * at most limit of them. A word ending in * matches any word starting with it,
+     * e.g. "hamstr*"; the other words must match whole.
+     */
+    public long[] search(String query, int limit) {
+        if (bulk) throw new IllegalStateException("Notes searched before refresh()");
+        List<List<Postings>> clauses = new ArrayList<>();
+        for (String part : query.trim().split("\\s+")) {
+            boolean prefix = part.endsWith("*");
+            List<String> words = words(prefix ? part.substring(0, part.length() - 1) : part);
+            for (int i = 0; i < words.size(); i++) {
+                // "left-side*" is left AND side*.
+                List<Postings> lists = prefix && i == words.size() - 1 ? withPrefix(words.get(i)) : exactly(words.get(i));
+                if (lists.isEmpty()) return new long[0];
+                clauses.add(lists);
+            }
+        }
+        if (clauses.isEmpty() || limit <= 0) return new long[0];
+
+        // Walk the rarest clause newest first, merging its lists if it is a prefix, and probe
+        // the others. Stops at limit hits, so a common word isn't walked to the end.
+        clauses.sort((a, b) -> Long.compare(total(a), total(b)));
+        List<Postings> driver = clauses.get(0);
+        if (driver.size() == 1) return walk(driver.get(0), clauses, cursors(clauses), limit);
+        int[] pos = new int[driver.size()];
+        PriorityQueue<Integer> newest = new PriorityQueue<>(
+            (a, b) -> Long.compare(driver.get(b).keys[pos[b]], driver.get(a).keys[pos[a]]));
+        for (int i = 0; i < pos.length; i++) {
+            pos[i] = driver.get(i).size - 1;
+            if (pos[i] >= 0) newest.add(i);
+        }
+
+        int[][] cursors = cursors(clauses);
+        long[] out = new long[(int) Math.min(limit, total(driver))];
+        int found = 0;
+        long previous = 0;
+        boolean first = true;
+        while (!newest.isEmpty() && found < out.length) {
+            int i = newest.poll();
+            long key = driver.get(i).keys[pos[i]];
+            if (--pos[i] >= 0) newest.add(i);
+            // A note with both "hamstring" and "hamstrings" is in two of the lists.
+            if (!first && key == previous) continue;
+            first = false;
+            previous = key;
+            if (nextMatch(clauses, cursors, key) == key) out[found++] = key;
+        }
+        return found == out.length ? out : Arrays.copyOf(out, found);
+    }
+
+    private static long[] walk(Postings driver, List<List<Postings>> clauses, int[][] cursors, int limit) {
+        long[] out = new long[Math.min(limit, driver.size)];
+        int found = 0;
+        int i = driver.size - 1;
+        while (i >= 0 && found < out.length) {
+            long key = driver.keys[i];
+            long next = nextMatch(clauses, cursors, key);
+            if (next == key) {
+                out[found++] = key;
+                i--;
+            } else if (next == Long.MIN_VALUE) {
+                break;
+            } else {
+                // Leapfrog: skip the keys no other clause shares.
+                i = driver.seekDown(next, i);
+            }
+        }
+        return found == out.length ? out : Arrays.copyOf(out, found);
+    }
+
+    // Keys are probed newest first, so each probed list keeps a cursor that only moves down.
+    private static int[][] cursors(List<List<Postings>> clauses) {
+        int[][] cursors = new int[clauses.size()][];
+        for (int c = 1; c < cursors.length; c++) {
+            cursors[c] = new int[clauses.get(c).size()];
+            for (int l = 0; l < cursors[c].length; l++) cursors[c][l] = clauses.get(c).get(l).size;
+        }
+        return cursors;
+    }
+
+    /** Approximate heap bytes of the term map and its posting arrays. */
+    public long footprintBytes() {
+        return bytes;
+    }
+
+    /** Distinct lower-cased runs of letters and digits, in order of first appearance. */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) return words;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String word = text.substring(start, i).toLowerCase();
+                // Notes are a handful of words, so a scan beats hashing into a set.
+                if (!words.contains(word)) words.add(word);
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private List<Postings> exactly(String word) {
+        Postings postings = terms.get(word);
+        return postings == null ? List.of() : List.of(postings);
+    }
+
+    private List<Postings> withPrefix(String prefix) {
+        return new ArrayList<>(terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+    }
+
+    private static long total(List<Postings> lists) {
+        long total = 0;
+        for (Postings p : lists) total += p.size;
+        return total;
+    }
+
+    /**
+     * key itself if every clause but the walked one (clause 0) holds it; otherwise the newest key
+     * below it that the first failing clause holds, since nothing between can match,
+     * or Long.MIN_VALUE when that clause has nothing older. A cursor skipped by an
+     * early return is only left high, which costs a longer gallop next time.
+     */
+    private static long nextMatch(List<List<Postings>> clauses, int[][] cursors, long key) {
+        for (int c = 1; c < clauses.size(); c++) {
+            boolean any = false;
+            long below = Long.MIN_VALUE;
+            List<Postings> lists = clauses.get(c);
+            for (int l = 0; l < lists.size() && !any; l++) {
+                Postings p = lists.get(l);
+                int at = p.seekDown(key, cursors[c][l]);
+                cursors[c][l] = at + 1;
+                if (at < 0) continue;
+                any = p.keys[at] == key;
+                below = Math.max(below, p.keys[at]);
+            }
+            if (!any) return below;
+        }
+        return key;
+    }
+
+    /** One word's keys, ascending once sorted. */
+    private static final class Postings {
+        private long[] keys = new long[2];
+        private int size;
+
+        void add(long key, boolean append) {
+            if (size == keys.length) keys = Arrays.copyOf(keys, keys.length * 2);
+            if (append) {
+                keys[size++] = key;
+                return;
+            }
+            int at = Arrays.binarySearch(keys, 0, size, key);
+            if (at >= 0) return;
+            at = -at - 1;
+            System.arraycopy(keys, at, keys, at + 1, size - at);
+            keys[at] = key;
+            size++;
+        }
+
+        void remove(long key, boolean unsorted) {
+            int at = -1;
+            if (!unsorted) {
+                at = Arrays.binarySearch(keys, 0, size, key);
+            } else {
+                // Only while bulk loading, e.g. a journal replay deleting a loaded row.
+                for (int i = 0; i < size; i++) {
+                    if (keys[i] == key) {
+                        at = i;
+                        break;
+                    }
+                }
+            }
+            if (at < 0) return;
+            System.arraycopy(keys, at + 1, keys, at, size - at - 1);
+            size--;
+        }
+
+        /**
+         * Index of the last key at or below key among the first end keys, or -1. Gallops
+         * down from end, so a run of descending lookups costs about the gaps between them.
+         */
+        int seekDown(long key, int end) {
+            int hi = end;
+            int step = 1;
+            while (hi - step >= 0 && keys[hi - step] > key) {
+                hi -= step;
+                step <<= 1;
+            }
+            int lo = Math.max(0, hi - step);
+            // keys[hi..end) are above key; the answer lies in [lo, hi).
+            int at = Arrays.binarySearch(keys, lo, hi, key);
+            return at >= 0 ? at : -at - 2;
+        }
+
+        void sort() {
+            Arrays.sort(keys, 0, size);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || keys[i] != keys[unique - 1]) keys[unique++] = keys[i];
+            }
+            size = unique;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+import javafx.collections.ObservableListBase;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Newest-first view of every session for the ListViews, fetched from the
+ * TrackerService a page at a time as cells ask for rows. Only a bounded number
+ * of pages is cached. Adds and deletes fire a single-row change instead of
+ * replacing the list.
+ */
+public class PagedSessionList extends ObservableListBase<TrainingSession> {
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_CACHED_PAGES = 20;
+
+    private final TrackerService tracker;
+    private final Map<Integer, List<TrainingSession>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<TrainingSession>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private int size;
+
+    public PagedSessionList(TrackerService tracker) {
+        this.tracker = tracker;
+        this.size = tracker.sessionCount();
+    }
+
+    @Override
+    public TrainingSession get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        int page = index / PAGE_SIZE;
+        List<TrainingSession> rows = pages.get(page);
+        if (rows == null) {
+            TrackerEvents.UiRefresh event = new TrackerEvents.UiRefresh();
+            event.begin();
+            rows = tracker.getSessionsPage(page * PAGE_SIZE, PAGE_SIZE);
+            pages.put(page, rows);
+            event.view = "sessions page " + page;
+            event.rows = rows.size();
+            event.commit();
+        }
+        int offset = index % PAGE_SIZE;
+        // The service and the cached size can briefly disagree mid-change; don't blow up a cell over it.
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Looks the row up by id instead of scanning, which AbstractList would do. */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof TrainingSession s)) return -1;
+        int index = tracker.indexOfSession(s.id());
+        return index >= 0 && index < size && s.equals(get(index)) ? index : -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /** Call after tracker.addSession(). */
+    public void sessionAdded(TrainingSession session) {
+        int index = tracker.indexOfSession(session.id());
+        if (index < 0) return;
+        dropPagesFrom(index);
+        size++;
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    /** Call after tracker.deleteSession(), with the index the row had before the delete. */
+    public void sessionRemoved(int index, TrainingSession removed) {
+        if (index < 0) return;
+        dropPagesFrom(index);
+        size--;
+        beginChange();
+        nextRemove(index, removed);
+        endChange();
+    }
+
+    /** Everything from this row on has shifted by one, so those pages are stale. */
+    private void dropPagesFrom(int index) {
+        int firstStale = index / PAGE_SIZE;
+        pages.keySet().removeIf(page -> page >= firstStale);
+    }
+}
@@ -0,0 +1,103 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Loads a large CSV file by memory-mapping it, cutting it into record-aligned
+ * chunks and parsing the chunks in parallel on a fork-join pool. Results are
+ * concatenated in chunk order, so the output matches a sequential read.
+ */
+public class ParallelCsvLoader {
+    private static final long MIN_CHUNK = 1 << 20;
+    private static final long SCAN_WINDOW = 1 << 28;
+
+    // Boundary scan states, mirroring how CsvReader treats quotes.
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final ForkJoinPool pool;
+
+    public ParallelCsvLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public <T> List<T> load(Path path, Function<CsvReader, T> parser) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long target = Math.max(MIN_CHUNK, size / (pool.getParallelism() * 4L));
+            long[] bounds = recordBoundaries(ch, size, target);
+
+            List<ForkJoinTask<List<T>>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                tasks.add(pool.submit(() -> parseChunk(ch, start, end, parser)));
+            }
+
+            List<T> out = new ArrayList<>();
+            for (ForkJoinTask<List<T>> task : tasks) {
+                out.addAll(task.join());
+            }
+            return out;
+        }
+    }
+
+    private static <T> List<T> parseChunk(FileChannel ch, long start, long end, Function<CsvReader, T> parser) {
+        try {
+            MappedByteBuffer bytes = ch.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            CsvReader r = new CsvReader(bytes);
+            List<T> out = new ArrayList<>();
+            while (r.next()) {
+                out.add(parser.apply(r));
+            }
+            return out;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed mapping bytes " + start + "-" + end + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Chunk start offsets plus the file size. One cheap sequential pass tracks the
+     * quote state so a cut never lands on a line break inside a quoted note.
+     */
+    private static long[] recordBoundaries(FileChannel ch, long size, long target) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long nextCut = target;
+        int state = FIELD_START;
+
+        for (long windowStart = 0; windowStart < size && nextCut < size; windowStart += SCAN_WINDOW) {
+            long len = Math.min(SCAN_WINDOW, size - windowStart);
+            MappedByteBuffer window = ch.map(FileChannel.MapMode.READ_ONLY, windowStart, len);
+            for (int i = 0; i < len; i++) {
+                byte b = window.get(i);
+                switch (state) {
+                    case FIELD_START -> state = b == '"' ? QUOTED : (b == ',' || b == '\n') ? FIELD_START : UNQUOTED;
+                    case UNQUOTED -> state = (b == ',' || b == '\n') ? FIELD_START : UNQUOTED;
+                    case QUOTED -> state = b == '"' ? QUOTE_IN_QUOTED : QUOTED;
+                    case QUOTE_IN_QUOTED -> state = b == '"' ? QUOTED : (b == ',' || b == '\n') ? FIELD_START : UNQUOTED;
+                    default -> throw new IllegalStateException();
+                }
+                long pos = windowStart + i;
+                if (b == '\n' && state == FIELD_START && pos + 1 >= nextCut && pos + 1 < size) {
+                    bounds.add(pos + 1);
+                    nextCut = pos + 1 + target;
+                }
+            }
+        }
+        bounds.add(size);
+
+        long[] out = new long[bounds.size()];
+        for (int i = 0; i < out.length; i++) out[i] = bounds.get(i);
+        return out;
+    }
+}
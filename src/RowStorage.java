@@ -0,0 +1,20 @@
+/**
+ * A Storage that can also persist one row at a time, e.g. SqlStorage. Without
+ * a journal in front of it, TrackerService sends each change straight to it
+ * instead of saving whole collections.
+ */
+public interface RowStorage extends Storage {
+    /** Inserts or replaces one session. */
+    void putSession(TrainingSession session);
+
+    /** Deletes a session and its drills together. */
+    void deleteSession(int sessionId);
+
+    /** Inserts or replaces one drill. */
+    void putDrill(DrillEntry drill);
+
+    /** Runs several row writes as one unit where the backend can, e.g. one transaction. */
+    default void batch(Runnable rowWrites) {
+        rowWrites.run();
+    }
+}
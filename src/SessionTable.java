@@ -0,0 +1,149 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Column-oriented storage for sessions: one primitive array per field and a
+ * row ("slot") per session. TrainingSession records are only built on demand
+ * by get(), so scans and aggregations run over plain arrays. Freed slots are
+ * reused by later inserts.
+ */
+public class SessionTable {
+    private static final SessionType[] TYPES = SessionType.values();
+    private static final byte FREE = -1;
+
+    private int[] ids = new int[0];
+    private int[] days = new int[0];
+    private byte[] types = new byte[0];
+    private int[] minutes = new int[0];
+    private int[] intensities = new int[0];
+    private String[] notes = new String[0];
+    // Kept up to date on every write, so footprintBytes() needn't walk the notes.
+    private long notesBytes;
+
+    private int highWater;
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+    private final IntIntMap slotById = new IntIntMap();
+
+    public void clear() {
+        ids = new int[0];
+        days = new int[0];
+        types = new byte[0];
+        minutes = new int[0];
+        intensities = new int[0];
+        notes = new String[0];
+        notesBytes = 0;
+        highWater = 0;
+        freeCount = 0;
+        slotById.clear();
+    }
+
+    public int size() {
+        return slotById.size();
+    }
+
+    /** Slots are live or free up to this bound; use isLive() when scanning. */
+    public int highWater() {
+        return highWater;
+    }
+
+    /** Approximate heap bytes: the columns at capacity, the id map and the notes text. */
+    public long footprintBytes() {
+        return (long) ids.length * (4 + 4 + 1 + 4 + 4 + 4) + (long) freeSlots.length * 4 + slotById.footprintBytes()
+            + notesBytes;
+    }
+
+    public boolean isLive(int slot) {
+        return types[slot] != FREE;
+    }
+
+    public int slotOf(int id) {
+        return slotById.get(id, -1);
+    }
+
+    public int insert(TrainingSession s) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (highWater == ids.length) grow();
+            slot = highWater++;
+        }
+        write(slot, s);
+        slotById.put(s.id(), slot);
+        return slot;
+    }
+
+    /** Overwrites a live row; the id must not change. */
+    public void set(int slot, TrainingSession s) {
+        write(slot, s);
+    }
+
+    public void remove(int slot) {
+        slotById.remove(ids[slot], -1);
+        types[slot] = FREE;
+        notesBytes -= Metrics.stringBytes(notes[slot]);
+        notes[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    public TrainingSession get(int slot) {
+        return new TrainingSession(
+            ids[slot],
+            LocalDate.ofEpochDay(days[slot]),
+            TYPES[types[slot]],
+            minutes[slot],
+            intensities[slot],
+            notes[slot] == null ? "" : notes[slot]
+        );
+    }
+
+    public int id(int slot) {
+        return ids[slot];
+    }
+
+    public int epochDay(int slot) {
+        return days[slot];
+    }
+
+    public int typeOrdinal(int slot) {
+        return types[slot];
+    }
+
+    public int minutes(int slot) {
+        return minutes[slot];
+    }
+
+    public int intensity(int slot) {
+        return intensities[slot];
+    }
+
+    public String notes(int slot) {
+        return notes[slot] == null ? "" : notes[slot];
+    }
+
+    private void write(int slot, TrainingSession s) {
+        ids[slot] = s.id();
+        days[slot] = (int) s.date().toEpochDay();
+        types[slot] = (byte) s.type().ordinal();
+        minutes[slot] = s.minutes();
+        intensities[slot] = s.intensity();
+        // Most sessions have no notes; null keeps those rows from holding a String each.
+        notesBytes -= Metrics.stringBytes(notes[slot]);
+        notes[slot] = s.notes().isEmpty() ? null : s.notes();
+        notesBytes += Metrics.stringBytes(notes[slot]);
+    }
+
+    private void grow() {
+        int cap = Math.max(64, ids.length * 2);
+        ids = Arrays.copyOf(ids, cap);
+        days = Arrays.copyOf(days, cap);
+        types = Arrays.copyOf(types, cap);
+        minutes = Arrays.copyOf(minutes, cap);
+        intensities = Arrays.copyOf(intensities, cap);
+        notes = Arrays.copyOf(notes, cap);
+    }
+}
@@ -0,0 +1,301 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage in an embedded, file-based SQL database reached through JDBC, e.g.
+ * {@code jdbc:sqlite:tracker.db} or {@code jdbc:h2:./tracker}. The driver jar
+ * only has to be on the classpath. Dates are stored as epoch days so the date
+ * index orders them numerically.
+ *
+ * Row updates are single-row transactions, or one transaction per batch();
+ * deleting a session removes its drills in the same transaction. The bulk save* methods replace a whole
+ * table and are only used for imports and migration.
+ */
+public class SqlStorage implements RowStorage, AutoCloseable {
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS sessions (id INTEGER PRIMARY KEY, day INTEGER NOT NULL,"
+            + " type VARCHAR(32) NOT NULL, minutes INTEGER NOT NULL, intensity INTEGER NOT NULL, notes VARCHAR(4000))",
+        "CREATE TABLE IF NOT EXISTS drills (id INTEGER PRIMARY KEY, session_id INTEGER NOT NULL,"
+            + " type VARCHAR(32) NOT NULL, reps INTEGER NOT NULL, success INTEGER NOT NULL, notes VARCHAR(4000))",
+        "CREATE TABLE IF NOT EXISTS targets (id INTEGER PRIMARY KEY, sessions_per_week INTEGER NOT NULL,"
+            + " wall_ball_reps_per_week INTEGER NOT NULL, gym_minutes_per_week INTEGER NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS idx_sessions_day ON sessions (day)",
+        "CREATE INDEX IF NOT EXISTS idx_sessions_type ON sessions (type)",
+        "CREATE INDEX IF NOT EXISTS idx_drills_session ON drills (session_id)",
+    };
+
+    private static final String INSERT_SESSION =
+        "INSERT INTO sessions (day, type, minutes, intensity, notes, id) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SESSION =
+        "UPDATE sessions SET day = ?, type = ?, minutes = ?, intensity = ?, notes = ? WHERE id = ?";
+    private static final String INSERT_DRILL =
+        "INSERT INTO drills (session_id, type, reps, success, notes, id) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_DRILL =
+        "UPDATE drills SET session_id = ?, type = ?, reps = ?, success = ?, notes = ? WHERE id = ?";
+
+    private final String url;
+    private final Connection conn;
+    private boolean inBatch;
+
+    public SqlStorage(String url) {
+        this.url = url;
+        try {
+            conn = DriverManager.getConnection(url);
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement()) {
+                for (String ddl : SCHEMA) st.execute(ddl);
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed opening " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized List<TrainingSession> loadSessions() {
+        List<TrainingSession> out = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, day, type, minutes, intensity, notes FROM sessions ORDER BY day DESC, id DESC")) {
+            while (rs.next()) {
+                out.add(new TrainingSession(rs.getInt(1), LocalDate.ofEpochDay(rs.getLong(2)),
+                    SessionType.valueOf(rs.getString(3)), rs.getInt(4), rs.getInt(5), notes(rs.getString(6))));
+            }
+            conn.commit();
+            return out;
+        } catch (SQLException e) {
+            throw failure("loading sessions", e);
+        }
+    }
+
+    @Override
+    public synchronized List<DrillEntry> loadDrills() {
+        List<DrillEntry> out = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, session_id, type, reps, success, notes FROM drills ORDER BY id")) {
+            while (rs.next()) {
+                out.add(new DrillEntry(rs.getInt(1), rs.getInt(2), DrillType.valueOf(rs.getString(3)),
+                    rs.getInt(4), rs.getInt(5), notes(rs.getString(6))));
+            }
+            conn.commit();
+            return out;
+        } catch (SQLException e) {
+            throw failure("loading drills", e);
+        }
+    }
+
+    @Override
+    public synchronized Optional<Targets> loadTargets() {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT sessions_per_week, wall_ball_reps_per_week, gym_minutes_per_week FROM targets WHERE id = 1")) {
+            Optional<Targets> out = rs.next()
+                ? Optional.of(new Targets(rs.getInt(1), rs.getInt(2), rs.getInt(3)))
+                : Optional.empty();
+            conn.commit();
+            return out;
+        } catch (SQLException e) {
+            throw failure("loading targets", e);
+        }
+    }
+
+    @Override
+    public synchronized void saveSessions(Collection<TrainingSession> sessions) {
+        try {
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate("DELETE FROM sessions");
+            }
+            try (PreparedStatement ps = conn.prepareStatement(INSERT_SESSION)) {
+                int batched = 0;
+                for (TrainingSession s : sessions) {
+                    bindSession(ps, s);
+                    ps.addBatch();
+                    if (++batched % BATCH_SIZE == 0) ps.executeBatch();
+                }
+                ps.executeBatch();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            throw rollback("saving sessions", e);
+        }
+    }
+
+    @Override
+    public synchronized void saveDrills(Collection<DrillEntry> drills) {
+        try {
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate("DELETE FROM drills");
+            }
+            try (PreparedStatement ps = conn.prepareStatement(INSERT_DRILL)) {
+                int batched = 0;
+                for (DrillEntry d : drills) {
+                    bindDrill(ps, d);
+                    ps.addBatch();
+                    if (++batched % BATCH_SIZE == 0) ps.executeBatch();
+                }
+                ps.executeBatch();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            throw rollback("saving drills", e);
+        }
+    }
+
+    @Override
+    public synchronized void saveTargets(Targets targets) {
+        try {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE targets SET sessions_per_week = ?, wall_ball_reps_per_week = ?, gym_minutes_per_week = ? WHERE id = 1")) {
+                bindTargets(ps, targets);
+                if (ps.executeUpdate() == 0) {
+                    try (PreparedStatement insert = conn.prepareStatement(
+                            "INSERT INTO targets (sessions_per_week, wall_ball_reps_per_week, gym_minutes_per_week, id) VALUES (?, ?, ?, 1)")) {
+                        bindTargets(insert, targets);
+                        insert.executeUpdate();
+                    }
+                }
+            }
+            commitUnlessBatched();
+        } catch (SQLException e) {
+            throw rollback("saving targets", e);
+        }
+    }
+
+    /** The database has no cheap modification time to compare against, so it never looks newer than a snapshot. */
+    @Override
+    public long lastModified() {
+        return 0;
+    }
+
+    @Override
+    public synchronized void putSession(TrainingSession session) {
+        try {
+            upsert(UPDATE_SESSION, INSERT_SESSION, ps -> bindSession(ps, session));
+            commitUnlessBatched();
+        } catch (SQLException e) {
+            throw rollback("saving session " + session.id(), e);
+        }
+    }
+
+    @Override
+    public synchronized void deleteSession(int sessionId) {
+        try {
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM drills WHERE session_id = ?")) {
+                ps.setInt(1, sessionId);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM sessions WHERE id = ?")) {
+                ps.setInt(1, sessionId);
+                ps.executeUpdate();
+            }
+            commitUnlessBatched();
+        } catch (SQLException e) {
+            throw rollback("deleting session " + sessionId, e);
+        }
+    }
+
+    @Override
+    public synchronized void putDrill(DrillEntry drill) {
+        try {
+            upsert(UPDATE_DRILL, INSERT_DRILL, ps -> bindDrill(ps, drill));
+            commitUnlessBatched();
+        } catch (SQLException e) {
+            throw rollback("saving drill " + drill.id(), e);
+        }
+    }
+
+    /** The row writes share one transaction: all of them commit, or none do. */
+    @Override
+    public synchronized void batch(Runnable rowWrites) {
+        inBatch = true;
+        try {
+            rowWrites.run();
+            conn.commit();
+        } catch (SQLException e) {
+            throw rollback("committing batch", e);
+        } catch (RuntimeException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        } finally {
+            inBatch = false;
+        }
+    }
+
+    private void commitUnlessBatched() throws SQLException {
+        if (!inBatch) conn.commit();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed closing " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    /** UPDATE first and INSERT if nothing matched; both statements take the id last. Portable across dialects. */
+    private void upsert(String update, String insert, Binder binder) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(update)) {
+            binder.bind(ps);
+            if (ps.executeUpdate() > 0) return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(insert)) {
+            binder.bind(ps);
+            ps.executeUpdate();
+        }
+    }
+
+    private static void bindSession(PreparedStatement ps, TrainingSession s) throws SQLException {
+        ps.setLong(1, s.date().toEpochDay());
+        ps.setString(2, s.type().name());
+        ps.setInt(3, s.minutes());
+        ps.setInt(4, s.intensity());
+        ps.setString(5, s.notes().isEmpty() ? null : s.notes());
+        ps.setInt(6, s.id());
+    }
+
+    private static void bindDrill(PreparedStatement ps, DrillEntry d) throws SQLException {
+        ps.setInt(1, d.sessionId());
+        ps.setString(2, d.drillType().name());
+        ps.setInt(3, d.reps());
+        ps.setInt(4, d.success());
+        ps.setString(5, d.notes().isEmpty() ? null : d.notes());
+        ps.setInt(6, d.id());
+    }
+
+    private static void bindTargets(PreparedStatement ps, Targets t) throws SQLException {
+        ps.setInt(1, t.sessionsPerWeek());
+        ps.setInt(2, t.wallBallRepsPerWeek());
+        ps.setInt(3, t.gymMinutesPerWeek());
+    }
+
+    private static String notes(String value) {
+        return value == null ? "" : value;
+    }
+
+    private RuntimeException rollback(String what, SQLException e) {
+        try {
+            conn.rollback();
+        } catch (SQLException suppressed) {
+            e.addSuppressed(suppressed);
+        }
+        return failure(what, e);
+    }
+
+    private RuntimeException failure(String what, SQLException e) {
+        return new RuntimeException("Failed " + what + " in " + url + ": " + e.getMessage(), e);
+    }
+}
@@ -0,0 +1,252 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * A panel of players, one TrackerService shard per player in its own
+ * subdirectory of the squad root. A shard is only loaded the first time it is
+ * asked for, and is flushed and closed again once it has gone unused for the
+ * idle timeout. Squad-wide stats load and query the shards in parallel.
+ * Callers hold a Lease while they use a shard, so it isn't closed under them.
+ */
+public class Squad implements AutoCloseable {
+    private final Path root;
+    private final long idleMillis;
+    private final Map<String, Shard> shards = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+    private final ScheduledExecutorService evictor;
+
+    /** The map entry is created cheaply; the load happens under the shard's own lock, not the map's. */
+    private static final class Shard {
+        final Path dir;
+        TrackerService tracker;
+        // Both only change inside a map compute for the player, so they can't race the evictor.
+        volatile int leases;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        Shard(Path dir) {
+            this.dir = dir;
+        }
+
+        synchronized TrackerService open() {
+            if (tracker == null) tracker = TrackerFactory.open(dir);
+            return tracker;
+        }
+
+        synchronized void close() {
+            if (tracker != null) tracker.close();
+        }
+    }
+
+    /**
+     * A player's tracker, pinned open: the shard isn't evicted until every lease on
+     * it is closed, however long the caller holds it.
+     */
+    public final class Lease implements AutoCloseable {
+        private final String player;
+        private final Shard shard;
+        private final TrackerService tracker;
+        private boolean closed;
+
+        private Lease(String player, Shard shard, TrackerService tracker) {
+            this.player = player;
+            this.shard = shard;
+            this.tracker = tracker;
+        }
+
+        public TrackerService tracker() {
+            return tracker;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            release(player, shard);
+        }
+    }
+
+    private Squad(Path root, long idleMillis) {
+        this.root = root;
+        this.idleMillis = idleMillis;
+        this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "squad-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "squad-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Opens the squad at root and starts closing shards left idle for idleMillis. */
+    public static Squad open(Path root, long idleMillis) {
+        Squad squad = new Squad(root, idleMillis);
+        long sweep = Math.max(1000, idleMillis / 4);
+        squad.evictor.scheduleWithFixedDelay(squad::evictIdle, sweep, sweep, TimeUnit.MILLISECONDS);
+        return squad;
+    }
+
+    /** Player names, i.e. the subdirectories of the squad root, sorted. */
+    public List<String> players() {
+        if (!Files.isDirectory(root)) return new ArrayList<>();
+        try (Stream<Path> dirs = Files.list(root)) {
+            return dirs.filter(Files::isDirectory)
+                .map(p -> p.getFileName().toString())
+                .sorted()
+                .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed listing " + root + ": " + e.getMessage(), e);
+        }
+    }
+
+    public void addPlayer(String player) {
+        try {
+            Files.createDirectories(playerDir(player));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed creating player " + player + ": " + e.getMessage(), e);
+        }
+    }
+
+    /** Leases the player's tracker, loading the shard if it isn't open. Close the lease when done with it. */
+    public Lease lease(String player) {
+        Path dir = playerDir(player);
+        if (!Files.isDirectory(dir)) throw new IllegalArgumentException("No such player: " + player);
+        Shard shard = shards.compute(player, (p, s) -> {
+            if (s == null) s = new Shard(dir);
+            s.leases++;
+            s.lastUsed = System.currentTimeMillis();
+            return s;
+        });
+        try {
+            return new Lease(player, shard, shard.open());
+        } catch (RuntimeException e) {
+            release(player, shard);
+            throw e;
+        }
+    }
+
+    private void release(String player, Shard shard) {
+        // The idle timeout counts from when the shard was last let go, not picked up.
+        shards.computeIfPresent(player, (p, s) -> {
+            if (s == shard) {
+                s.leases--;
+                s.lastUsed = System.currentTimeMillis();
+            }
+            return s;
+        });
+    }
+
+    public int openShards() {
+        return shards.size();
+    }
+
+    /** Per-player stats for the range, computed on the worker pool, keyed in player order. */
+    public Map<String, TrackerService.WeeklyStats> statsByPlayer(LocalDate from, LocalDate to) {
+        List<String> players = players();
+        List<CompletableFuture<TrackerService.WeeklyStats>> futures = new ArrayList<>(players.size());
+        for (String player : players) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try (Lease lease = lease(player)) {
+                    return lease.tracker().getWeeklyStats(from, to);
+                }
+            }, workers));
+        }
+        Map<String, TrackerService.WeeklyStats> out = new LinkedHashMap<>();
+        for (int i = 0; i < players.size(); i++) {
+            out.put(players.get(i), join(futures.get(i)));
+        }
+        return out;
+    }
+
+    /** The whole squad's stats for the range, e.g. total team load for a week. */
+    public TrackerService.WeeklyStats squadStats(LocalDate from, LocalDate to) {
+        TrackerService.WeeklyStats total = new TrackerService.WeeklyStats(0, 0, 0,
+            new int[SessionType.values().length], new int[DrillType.values().length], new int[DrillType.values().length]);
+        for (TrackerService.WeeklyStats stats : statsByPlayer(from, to).values()) {
+            total = plus(total, stats);
+        }
+        return total;
+    }
+
+    private static TrackerService.WeeklyStats plus(TrackerService.WeeklyStats a, TrackerService.WeeklyStats b) {
+        return new TrackerService.WeeklyStats(
+            a.sessionCount() + b.sessionCount(),
+            a.totalMinutes() + b.totalMinutes(),
+            a.trainingLoad() + b.trainingLoad(),
+            add(a.minutesByType(), b.minutesByType()),
+            add(a.repsByDrill(), b.repsByDrill()),
+            add(a.successByDrill(), b.successByDrill())
+        );
+    }
+
+    private static int[] add(int[] a, int[] b) {
+        int[] out = a.clone();
+        for (int i = 0; i < out.length; i++) out[i] += b[i];
+        return out;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /** Closes shards with no open lease that nobody has used within the idle timeout. */
+    void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        for (String player : shards.keySet()) {
+            // Checked and closed inside the compute: a concurrent lease() waits for the
+            // close, so it never loads the player's files while they are still being flushed.
+            shards.computeIfPresent(player, (p, shard) -> {
+                if (shard.leases > 0 || shard.lastUsed > cutoff) return shard;
+                closeQuietly(player, shard);
+                return null;
+            });
+        }
+    }
+
+    private static void closeQuietly(String player, Shard shard) {
+        try {
+            shard.close();
+        } catch (RuntimeException e) {
+            System.err.println("Failed closing shard " + player + ": " + e.getMessage());
+        }
+    }
+
+    private Path playerDir(String player) {
+        if (player.isBlank() || !player.equals(Path.of(player).getFileName().toString()) || player.startsWith(".")) {
+            throw new IllegalArgumentException("Bad player name: " + player);
+        }
+        return root.resolve(player);
+    }
+
+    /** Flushes and closes every open shard. */
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        workers.shutdown();
+        for (String player : shards.keySet()) {
+            Shard shard = shards.remove(player);
+            if (shard != null) closeQuietly(player, shard);
+        }
+    }
+}
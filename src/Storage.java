@@ -0,0 +1,25 @@
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where TrackerService keeps its data. File backends like CsvStorage only do
+ * whole-collection loads and saves. Backends that can persist one row at a
+ * time (SqlStorage) implement RowStorage as well.
+ */
+public interface Storage {
+    List<TrainingSession> loadSessions();
+
+    List<DrillEntry> loadDrills();
+
+    Optional<Targets> loadTargets();
+
+    void saveSessions(Collection<TrainingSession> sessions);
+
+    void saveDrills(Collection<DrillEntry> drills);
+
+    void saveTargets(Targets targets);
+
+    /** Newest modification time of the stored data in epoch millis, or 0 if unknown. */
+    long lastModified();
+}
@@ -0,0 +1,162 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Deterministic made-up training history for benchmarks and load tests: the
+ * same seed and row count always give the same rows. Sessions follow a rough
+ * club week (field work most common, then gym, wall ball, recovery and
+ * matches) spread over SPAN_YEARS, and each gets the drills that fit its type,
+ * so every SessionType and DrillType turns up in realistic proportions.
+ */
+public class SyntheticData {
+    public static final LocalDate START = LocalDate.of(2005, 1, 1);
+    public static final int SPAN_YEARS = 20;
+    // About 1 session per 3.5 rows, i.e. 2.5 drills per session on average.
+    private static final double ROWS_PER_SESSION = 3.5;
+
+    private static final SessionType[] SESSION_TYPES = SessionType.values();
+    // Percent of sessions per type, in SessionType order: FIELD, GYM, WALL_BALL, MATCH, RECOVERY.
+    private static final int[] SESSION_WEIGHTS = {35, 20, 20, 10, 15};
+    private static final String[] NOTES = {"", "", "", "good session", "tired legs", "wet ball", "windy", "felt sharp"};
+
+    private final long seed;
+
+    public SyntheticData(long seed) {
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java SyntheticData <rows> <dataDir> [seed]");
+            return;
+        }
+        int rows = Integer.parseInt(args[0]);
+        Path dir = Paths.get(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        int[] counts = new SyntheticData(seed).writeCsv(rows, dir);
+        System.out.println("Wrote " + counts[0] + " sessions and " + counts[1] + " drills to " + dir.toAbsolutePath());
+    }
+
+    /**
+     * Generates about {@code rows} rows in total, sessions plus drills, oldest
+     * first. Each session is handed over before its drills. Ids start at 1.
+     */
+    public void generate(int rows, Consumer<TrainingSession> sessionSink, Consumer<DrillEntry> drillSink) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long spanDays = START.plusYears(SPAN_YEARS).toEpochDay() - START.toEpochDay();
+        long expectedSessions = Math.max(1, Math.round(rows / ROWS_PER_SESSION));
+        int sessionId = 0;
+        int drillId = 0;
+        int written = 0;
+        while (written < rows) {
+            sessionId++;
+            LocalDate date = START.plusDays(Math.min(spanDays - 1, (sessionId - 1) * spanDays / expectedSessions));
+            TrainingSession session = session(random, sessionId, date);
+            sessionSink.accept(session);
+            written++;
+            int drillCount = drillCount(random, session.type());
+            for (int i = 0; i < drillCount && written < rows; i++) {
+                drillSink.accept(drill(random, ++drillId, session));
+                written++;
+            }
+        }
+    }
+
+    /** Writes sessions.csv and drills.csv into dir, streaming. Returns {sessions, drills}. */
+    public int[] writeCsv(int rows, Path dir) {
+        int[] counts = new int[2];
+        try {
+            Files.createDirectories(dir);
+            try (BufferedWriter sessionsOut = Files.newBufferedWriter(dir.resolve("sessions.csv"));
+                 BufferedWriter drillsOut = Files.newBufferedWriter(dir.resolve("drills.csv"))) {
+                CsvWriter sessions = new CsvWriter(sessionsOut);
+                CsvWriter drills = new CsvWriter(drillsOut);
+                generate(rows, s -> {
+                    s.writeCsv(sessions);
+                    sessions.endRecord();
+                    counts[0]++;
+                }, d -> {
+                    d.writeCsv(drills);
+                    drills.endRecord();
+                    counts[1]++;
+                });
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing synthetic data to " + dir + ": " + e.getMessage(), e);
+        }
+        return counts;
+    }
+
+    private static TrainingSession session(SplittableRandom random, int id, LocalDate date) {
+        SessionType type = sessionType(random);
+        int minutes = switch (type) {
+            case FIELD -> 60 + 5 * random.nextInt(7);
+            case GYM -> 40 + 5 * random.nextInt(8);
+            case WALL_BALL -> 15 + 5 * random.nextInt(6);
+            case MATCH -> 60 + random.nextInt(21);
+            case RECOVERY -> 20 + 5 * random.nextInt(5);
+        };
+        int intensity = switch (type) {
+            case MATCH -> 4 + random.nextInt(2);
+            case RECOVERY -> 1 + random.nextInt(2);
+            default -> 2 + random.nextInt(3);
+        };
+        return new TrainingSession(id, date, type, minutes, intensity, NOTES[random.nextInt(NOTES.length)]);
+    }
+
+    private static SessionType sessionType(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        for (int i = 0; i < SESSION_WEIGHTS.length; i++) {
+            roll -= SESSION_WEIGHTS[i];
+            if (roll < 0) return SESSION_TYPES[i];
+        }
+        return SESSION_TYPES[0];
+    }
+
+    private static int drillCount(SplittableRandom random, SessionType type) {
+        return switch (type) {
+            case FIELD -> 2 + random.nextInt(4);
+            case GYM -> 2 + random.nextInt(3);
+            case WALL_BALL -> 1 + random.nextInt(3);
+            case MATCH -> random.nextInt(2);
+            case RECOVERY -> 1 + random.nextInt(2);
+        };
+    }
+
+    private static DrillEntry drill(SplittableRandom random, int id, TrainingSession session) {
+        DrillType type = switch (session.type()) {
+            case FIELD -> pick(random, DrillType.SHOOTING, DrillType.FIRST_TOUCH, DrillType.SPRINTS, DrillType.HOOK_BLOCK, DrillType.OTHER);
+            case GYM -> pick(random, DrillType.STRENGTH, DrillType.STRENGTH, DrillType.MOBILITY);
+            case WALL_BALL -> pick(random, DrillType.WALL_BALL, DrillType.WALL_BALL, DrillType.FIRST_TOUCH);
+            case MATCH -> DrillType.OTHER;
+            case RECOVERY -> DrillType.MOBILITY;
+        };
+        int reps = switch (type) {
+            case WALL_BALL -> 100 + random.nextInt(201);
+            case FIRST_TOUCH -> 30 + random.nextInt(71);
+            case SHOOTING -> 20 + random.nextInt(31);
+            case SPRINTS -> 6 + random.nextInt(10);
+            case STRENGTH -> 15 + random.nextInt(36);
+            case MOBILITY -> 5 + random.nextInt(11);
+            case HOOK_BLOCK -> 10 + random.nextInt(21);
+            case OTHER -> 5 + random.nextInt(26);
+        };
+        // Skill drills hit 50-95%; conditioning drills don't track success.
+        int success = switch (type) {
+            case SPRINTS, STRENGTH, MOBILITY -> 0;
+            default -> reps * (50 + random.nextInt(46)) / 100;
+        };
+        return new DrillEntry(id, session.id(), type, reps, success, "");
+    }
+
+    @SafeVarargs
+    private static <E> E pick(SplittableRandom random, E... choices) {
+        return choices[random.nextInt(choices.length)];
+    }
+}
@@ -8,19 +8,26 @@ public record Targets(
     }
 
     public String toCsv() {
-        return sessionsPerWeek + "," +
-            wallBallRepsPerWeek + "," +
-            gymMinutesPerWeek;
+        return CsvWriter.line(this::writeCsv);
+    }
+
+    public void writeCsv(CsvWriter w) {
+        w.field(sessionsPerWeek)
+            .field(wallBallRepsPerWeek)
+            .field(gymMinutesPerWeek);
     }
 
     public static Targets fromCsv(String line) {
-        var cols = CsvUtil.parse(line);
-        if (cols.size() < 3) throw new IllegalArgumentException("Bad targets row: " + line);
+        return fromCsv(CsvReader.ofLine(line), 0);
+    }
+
+    public static Targets fromCsv(CsvReader r, int first) {
+        if (r.fieldCount() < first + 3) throw new IllegalArgumentException("Bad targets row: " + r);
 
         return new Targets(
-            Integer.parseInt(cols.get(0)),
-            Integer.parseInt(cols.get(1)),
-            Integer.parseInt(cols.get(2))
+            r.getInt(first),
+            r.getInt(first + 1),
+            r.getInt(first + 2)
         );
     }
 
@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+
+/**
+ * JDK Flight Recorder events around the operations that can stall the app:
+ * CSV reads and writes, stats queries and UI refreshes. Each event has its
+ * duration and, from JFR itself, the thread and stack it ran on, so a
+ * recording shows which of them held up the FX thread. Events cost next to
+ * nothing while no recording is running.
+ *
+ * Profiling mode: run with -Dtracker.profile=<file.jfr> to record these plus
+ * the JDK's "profile" settings from start-up, written to the file on exit.
+ */
+public final class TrackerEvents {
+    private static Recording recording;
+
+    private TrackerEvents() {}
+
+    @Name("hurling.CsvRead")
+    @Label("CSV Read")
+    @Category({"Hurling Tracker", "Storage"})
+    public static class CsvRead extends Event {
+        @Label("File")
+        public String file;
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("hurling.CsvWrite")
+    @Label("CSV Write")
+    @Description("Writing a whole CSV file: temp file, fsync and rename")
+    @Category({"Hurling Tracker", "Storage"})
+    public static class CsvWrite extends Event {
+        @Label("File")
+        public String file;
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("hurling.StatsQuery")
+    @Label("Stats Query")
+    @Category({"Hurling Tracker", "Queries"})
+    public static class StatsQuery extends Event {
+        @Label("From")
+        public String from;
+
+        @Label("To")
+        public String to;
+
+        @Label("Sessions")
+        public int sessions;
+    }
+
+    @Name("hurling.UiRefresh")
+    @Label("UI Refresh")
+    @Category({"Hurling Tracker", "UI"})
+    public static class UiRefresh extends Event {
+        @Label("View")
+        public String view;
+
+        @Label("Rows")
+        public int rows;
+    }
+
+    /** Starts profiling mode if -Dtracker.profile is set. Safe to call more than once. */
+    public static synchronized void startProfilingFromProperties() {
+        String file = System.getProperty("tracker.profile");
+        if (file == null || recording != null) return;
+        try {
+            recording = new Recording(Configuration.getConfiguration("profile"));
+            recording.setDestination(Paths.get(file));
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException("Failed starting profiling: " + e.getMessage(), e);
+        }
+        recording.setName("tracker-profile");
+        recording.setToDisk(true);
+        recording.setDumpOnExit(true);
+        recording.start();
+        System.err.println("Profiling to " + Paths.get(file).toAbsolutePath() + " (written on exit)");
+    }
+}
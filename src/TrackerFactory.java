@@ -0,0 +1,40 @@
+import java.nio.file.Path;
+
+/**
+ * Builds the TrackerService both apps use, with the backend picked by system properties:
+ * {@code -Dtracker.storage=csv} (default) for the CSV files with journal and binary snapshot,
+ * or {@code -Dtracker.storage=sql} for the embedded database at {@code -Dtracker.db}
+ * (default {@code tracker.db} in the same directory).
+ */
+public class TrackerFactory {
+    private TrackerFactory() {
+    }
+
+    /** Opens and loads the tracker whose files live in dir, with background saves on. */
+    public static TrackerService open(Path dir) {
+        // Before the load, so a recording covers start-up too.
+        TrackerEvents.startProfilingFromProperties();
+        TrackerService tracker = create(dir);
+        tracker.load();
+        tracker.enableBackgroundSaves(Long.getLong("tracker.saveDelayMs", 500));
+        Metrics.startDumpFromProperties();
+        return tracker;
+    }
+
+    static TrackerService create(Path dir) {
+        String backend = System.getProperty("tracker.storage", "csv");
+        return switch (backend) {
+            case "csv" -> new TrackerService(csvStorage(dir),
+                new Journal(dir.resolve("journal.log").toString()),
+                new BinarySnapshot(dir.resolve("tracker.snap").toString()));
+            // Every change is already its own transaction, so no journal or snapshot in front.
+            case "sql" -> new TrackerService(new SqlStorage(System.getProperty("tracker.db", "jdbc:sqlite:" + dir.resolve("tracker.db"))));
+            default -> throw new IllegalArgumentException("Unknown tracker.storage: " + backend + " (expected csv or sql)");
+        };
+    }
+
+    static CsvStorage csvStorage(Path dir) {
+        return new CsvStorage(dir.resolve("sessions.csv").toString(), dir.resolve("drills.csv").toString(),
+            dir.resolve("targets.csv").toString(), true);
+    }
+}
@@ -0,0 +1,294 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local JSON API over the JDK's built-in HttpServer, one virtual thread per request.
+ *
+ *   GET    /api/sessions[?offset=&limit=]   sessions newest first, streamed
+ *   GET    /api/sessions?from=&to=[&offset=&limit=]   sessions dated in the range, likewise
+ *   POST   /api/sessions                    add {date,type,minutes,intensity,notes}
+ *   DELETE /api/sessions/{id}               delete a session and its drills
+ *   GET    /api/sessions/{id}/drills        drills for a session
+ *   POST   /api/drills                      add {sessionId,drillType,reps,success,notes}
+ *   GET    /api/stats?from=&to=             WeeklyStats for any date range
+ *
+ * Every GET carries an ETag built from TrackerService.version() and the resolved
+ * query, so a client sending If-None-Match gets a 304 without the work being redone.
+ */
+public class TrackerHttpServer {
+    private static final int PAGE_SIZE = 500;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final TrackerService tracker;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // Differs per run, so an ETag from before a restart never matches.
+    private final String etagPrefix = Long.toHexString(System.currentTimeMillis());
+
+    public TrackerHttpServer(TrackerService tracker, InetSocketAddress address) {
+        this.tracker = tracker;
+        try {
+            this.server = HttpServer.create(address, 128);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed binding " + address + ": " + e.getMessage(), e);
+        }
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+    }
+
+    public static void main(String[] args) {
+        // Small JSON replies otherwise sit out Nagle plus delayed ACK, ~40 ms each. Read once when the server class loads.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("tracker.http.port", 8080);
+        TrackerService tracker = TrackerFactory.open(Paths.get(""));
+        TrackerHttpServer http = new TrackerHttpServer(tracker, new InetSocketAddress(port));
+        http.start();
+        System.out.println("Hurling Training Tracker API on http://localhost:" + http.port() + "/api/");
+        Runtime.getRuntime().addShutdownHook(new Thread(http::stop, "http-stop"));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Lets in-flight requests finish for up to a second, then stops. */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /** Signals an HTTP status other than 200 from inside a route. */
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try (ex) {
+            try {
+                route(ex);
+            } catch (HttpError e) {
+                sendError(ex, e.status, e.getMessage());
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                sendError(ex, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                System.err.println("HTTP " + ex.getRequestMethod() + " " + ex.getRequestURI() + " failed: " + e);
+                sendError(ex, 500, "Internal error");
+            }
+        }
+    }
+
+    private void route(HttpExchange ex) throws IOException {
+        String method = ex.getRequestMethod();
+        String[] parts = ex.getRequestURI().getPath().substring("/api/".length()).split("/");
+        Map<String, String> query = query(ex.getRequestURI().getRawQuery());
+
+        switch (parts[0]) {
+            case "sessions" -> {
+                if (parts.length == 1 && method.equals("GET")) listSessions(ex, query);
+                else if (parts.length == 1 && method.equals("POST")) addSession(ex);
+                else if (parts.length == 2 && method.equals("DELETE")) deleteSession(ex, id(parts[1]));
+                else if (parts.length == 3 && parts[2].equals("drills") && method.equals("GET")) listDrills(ex, id(parts[1]));
+                else throw notAllowed(method);
+            }
+            case "drills" -> {
+                if (parts.length == 1 && method.equals("POST")) addDrill(ex);
+                else throw notAllowed(method);
+            }
+            case "stats" -> {
+                if (parts.length == 1 && method.equals("GET")) stats(ex, query);
+                else throw notAllowed(method);
+            }
+            default -> throw new HttpError(404, "No such resource: " + ex.getRequestURI().getPath());
+        }
+    }
+
+    private void listSessions(HttpExchange ex, Map<String, String> query) throws IOException {
+        boolean range = query.containsKey("from") || query.containsKey("to");
+        LocalDate from = LocalDate.parse(query.getOrDefault("from", "0001-01-01"));
+        LocalDate to = LocalDate.parse(query.getOrDefault("to", "9999-12-31"));
+        int offset = Integer.parseInt(query.getOrDefault("offset", "0"));
+        int limit = Integer.parseInt(query.getOrDefault("limit", Integer.toString(Integer.MAX_VALUE)));
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException("offset and limit must not be negative");
+        if (notModified(ex, (range ? from + ".." + to : "all") + "/" + offset + "/" + limit)) return;
+
+        // Page through the service so a long history is never built in memory at once.
+        // Each page is a consistent read; an edit between pages can shift rows by one.
+        try (JsonWriter w = streamJson(ex)) {
+            w.beginArray();
+            int sent = 0;
+            while (sent < limit) {
+                int size = Math.min(PAGE_SIZE, limit - sent);
+                List<TrainingSession> page = range
+                    ? tracker.getSessionsBetween(from, to, offset + sent, size)
+                    : tracker.getSessionsPage(offset + sent, size);
+                for (TrainingSession s : page) s.writeJson(w);
+                sent += page.size();
+                if (page.size() < PAGE_SIZE) break;
+                w.flush();
+            }
+            w.endArray();
+        }
+    }
+
+    /** A session, optionally with its drills nested under "drills"; all of it is added or none. */
+    private void addSession(HttpExchange ex) throws IOException {
+        Map<String, List<Map<String, String>>> nested = new HashMap<>();
+        TrainingSession parsed = TrainingSession.fromJson(JsonReader.parseObject(readBody(ex), nested), 0);
+        // Checked before any ids are handed out; the batch checks it again under the lock.
+        String badDate = TrackerService.checkDate(parsed.date());
+        if (badDate != null) throw new IllegalArgumentException(badDate);
+        TrainingSession session = new TrainingSession(tracker.nextSessionId(), parsed.date(), parsed.type(),
+            parsed.minutes(), parsed.intensity(), parsed.notes());
+        TrackerService.Batch batch = tracker.batch().addSession(session);
+        for (Map<String, String> fields : nested.getOrDefault("drills", List.of())) {
+            fields.put("sessionId", Integer.toString(session.id()));
+            batch.addDrill(DrillEntry.fromJson(fields, tracker.nextDrillId()));
+        }
+        batch.commit();
+        sendJson(ex, 201, JsonWriter.string(session::writeJson));
+    }
+
+    private void deleteSession(HttpExchange ex, int id) throws IOException {
+        if (!tracker.deleteSession(id)) throw new HttpError(404, "No session " + id);
+        tracker.save();
+        ex.sendResponseHeaders(204, -1);
+    }
+
+    private void listDrills(HttpExchange ex, int sessionId) throws IOException {
+        if (notModified(ex, Integer.toString(sessionId))) return;
+        if (tracker.indexOfSession(sessionId) < 0) throw new HttpError(404, "No session " + sessionId);
+        List<DrillEntry> drills = tracker.getDrillsForSession(sessionId);
+        try (JsonWriter w = streamJson(ex)) {
+            w.beginArray();
+            for (DrillEntry d : drills) d.writeJson(w);
+            w.endArray();
+        }
+    }
+
+    private void addDrill(HttpExchange ex) throws IOException {
+        DrillEntry parsed = DrillEntry.fromJson(JsonReader.parseObject(readBody(ex)), 0);
+        if (parsed.reps() < 0 || parsed.success() < 0) throw new IllegalArgumentException("reps and success must not be negative");
+        DrillEntry drill = new DrillEntry(tracker.nextDrillId(), parsed.sessionId(), parsed.drillType(),
+            parsed.reps(), parsed.success(), parsed.notes());
+        // The session check and the add happen under one lock, so a concurrent delete can't orphan the drill.
+        if (!tracker.addDrill(drill)) throw new HttpError(404, "No session " + parsed.sessionId());
+        tracker.save();
+        sendJson(ex, 201, JsonWriter.string(drill::writeJson));
+    }
+
+    private void stats(HttpExchange ex, Map<String, String> query) throws IOException {
+        LocalDate to = query.containsKey("to") ? LocalDate.parse(query.get("to")) : LocalDate.now();
+        LocalDate from = query.containsKey("from") ? LocalDate.parse(query.get("from")) : to.minusDays(6);
+        // The defaults move with the date, so the tag names the dates they resolved to.
+        if (notModified(ex, from + ".." + to)) return;
+        TrackerService.WeeklyStats stats = tracker.getWeeklyStats(from, to);
+        sendJson(ex, 200, JsonWriter.string(w -> w.beginObject()
+            .name("from").value(from)
+            .name("to").value(to)
+            .name("sessionCount").value(stats.sessionCount())
+            .name("totalMinutes").value(stats.totalMinutes())
+            .name("trainingLoad").value(stats.trainingLoad())
+            .name("minutesByType").value(stats.minutesByType())
+            .name("repsByDrill").value(stats.repsByDrill())
+            .name("successByDrill").value(stats.successByDrill())
+            .endObject()));
+    }
+
+    /**
+     * Sets the ETag for the current data version and the resolved query, and answers
+     * 304 if the client already has it. The tag is taken before the read, so a write
+     * that lands in between only makes the next request refetch.
+     */
+    private boolean notModified(HttpExchange ex, String query) throws IOException {
+        String etag = "\"" + etagPrefix + "-" + tracker.version() + "-" + query + "\"";
+        ex.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = ex.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            ex.sendResponseHeaders(304, -1);
+            return true;
+        }
+        return false;
+    }
+
+    /** Chunked response: rows are written as they are produced. */
+    private static JsonWriter streamJson(HttpExchange ex) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(200, 0);
+        return new JsonWriter(new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8), 1 << 14));
+    }
+
+    private static void sendJson(HttpExchange ex, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        Headers headers = ex.getResponseHeaders();
+        headers.set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        ex.getResponseBody().write(bytes);
+    }
+
+    private static void sendError(HttpExchange ex, int status, String message) throws IOException {
+        // Headers may already be out if a streamed response failed halfway; then just drop the connection.
+        if (ex.getResponseCode() != -1) return;
+        ex.getResponseHeaders().remove("ETag");
+        sendJson(ex, status, JsonWriter.string(w -> w.beginObject().name("error").value(message).endObject()));
+    }
+
+    private static String readBody(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) throw new HttpError(413, "Request body too large");
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int id(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new HttpError(404, "No such resource: " + text);
+        }
+    }
+
+    private static HttpError notAllowed(String method) {
+        return new HttpError(405, "Method " + method + " not allowed here");
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> out = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return out;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            out.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+}
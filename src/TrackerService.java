@@ -1,60 +1,597 @@
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
+/**
+ * The tracker's data and operations, safe for concurrent callers. Writers are
+ * serialised by one StampedLock that covers only the in-memory update and its
+ * journal record; storage writes happen outside it. Reads that touch only
+ * arrays (stats, counts) run optimistically without taking the lock and retry
+ * under the read lock if a writer got in; reads that walk the session index
+ * take the read lock. ID allocation is lock-free.
+ */
 public class TrackerService {
-    private final CsvStorage storage;
-    
-    private final List<TrainingSession> sessions = new ArrayList<>();
-    private final List<DrillEntry> drills = new ArrayList<>();
+    private static final int COMPACT_AFTER = 500;
+    private static final Runnable NO_ROW_WRITE = () -> { };
 
-    private int nextSessionId = 1;
-    private int nextDrillId = 1;
-    private Targets targets = Targets.defaultTargets();
+    // The aggregates keep a row for every day between the oldest and newest session,
+    // so a typo like 0202 or +20240 must be turned away rather than sized for.
+    public static final LocalDate EARLIEST_DATE = LocalDate.of(2000, 1, 1);
+    public static final int MAX_DAYS_AHEAD = 366;
+    // Rows already stored are held to a wider window, so older data still loads; this
+    // one is what the aggregates can span, and anything outside it is skipped on load.
+    private static final LocalDate LOADABLE_FROM = LocalDate.of(1950, 1, 1);
+    private static final LocalDate LOADABLE_TO = LocalDate.of(2099, 12, 31);
 
-    public TrackerService(CsvStorage storage) {
+    // Bits for which collections changed since they were last written to storage.
+    private static final int SESSIONS_CHANGED = 1;
+    private static final int DRILLS_CHANGED = 2;
+    private static final int TARGETS_CHANGED = 4;
+
+    private static final Metrics.Histogram LOAD_TIME = Metrics.histogram("tracker.load");
+    private static final Metrics.Histogram SAVE_TIME = Metrics.histogram("tracker.save");
+    private static final Metrics.Histogram STATS_TIME = Metrics.histogram("tracker.weeklyStats");
+    private static final Metrics.Histogram SEARCH_TIME = Metrics.histogram("tracker.searchNotes");
+    // A TreeMap entry plus its boxed key and value, with compressed oops.
+    private static final long INDEX_ENTRY_BYTES = 72;
+
+    // Trackers loaded and not yet closed, summed by the memory gauges. Weak, so one nobody closed doesn't linger.
+    private static final Set<TrackerService> OPEN = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    static {
+        Metrics.gauge("memory.sessions.bytes", () -> footprint(t -> t.sessions.footprintBytes() + t.sessionIndex.size() * INDEX_ENTRY_BYTES));
+        Metrics.gauge("memory.drills.bytes", () -> footprint(t -> t.drills.footprintBytes()));
+        Metrics.gauge("memory.aggregates.bytes", () -> footprint(t -> t.aggregates.footprintBytes() + t.workload.footprintBytes()));
+        Metrics.gauge("memory.notes.bytes", () -> footprint(t -> t.notesIndex.footprintBytes()));
+    }
+
+    private final Storage storage;
+    // The storage again, if it takes single-row writes and there is no journal in front of it.
+    private final RowStorage rowStorage;
+    // Row writes made without a writer thread, queued under the write lock so they keep its
+    // order, and run by whichever caller gets rowWriteLock first once it has let go of it.
+    private final Queue<FutureTask<Void>> queuedRowWrites = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock rowWriteLock = new ReentrantLock();
+    private final Journal journal;
+    private final BinarySnapshot snapshot;
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+    // Without a journal, set once a save has made the storage newer than the binary snapshot.
+    private final AtomicBoolean snapshotBehind = new AtomicBoolean(false);
+    private ExecutorService compactor;
+
+    // Background persistence: save() marks a write as pending and the writer thread
+    // performs it after the debounce, so a burst of edits costs one write.
+    private final AtomicInteger changed = new AtomicInteger();
+    private final AtomicBoolean savePending = new AtomicBoolean(false);
+    private ScheduledExecutorService writer;
+    private Thread flushOnExit;
+    private long saveDebounceMillis;
+
+    private final StampedLock lock = new StampedLock();
+
+    // Rows live in primitive columns; records are only built when a caller asks for them.
+    // All of the below is guarded by lock.
+    private final SessionTable sessions = new SessionTable();
+    private final DrillTable drills = new DrillTable();
+    // Session slots ordered newest first by (date, id) packed into a long.
+    private final NavigableMap<Long, Integer> sessionIndex = new TreeMap<>(Collections.reverseOrder());
+    private final DailyAggregates aggregates = new DailyAggregates();
+    private final WorkloadSeries workload = new WorkloadSeries();
+    private final NotesIndex notesIndex = new NotesIndex();
+
+    // Bumped by every write; lets HTTP clients tell whether anything changed.
+    private long version;
+    private final AtomicInteger nextSessionId = new AtomicInteger(1);
+    private final AtomicInteger nextDrillId = new AtomicInteger(1);
+    private volatile Targets targets = Targets.defaultTargets();
+
+    public TrackerService(Storage storage) {
+        this(storage, null, null);
+    }
+
+    /** With a journal, mutations are appended to it and the CSVs become periodic snapshots. */
+    public TrackerService(Storage storage, Journal journal) {
+        this(storage, journal, null);
+    }
+
+    /**
+     * A binary snapshot, if given, is preferred at load while it is newer than the CSVs. It is
+     * written when the journal is compacted, or without a journal, when the tracker is closed.
+     */
+    public TrackerService(Storage storage, Journal journal, BinarySnapshot snapshot) {
         this.storage = storage;
+        this.rowStorage = journal == null && storage instanceof RowStorage rows ? rows : null;
+        this.journal = journal;
+        this.snapshot = snapshot;
+    }
+
+    private static long footprint(ToLongFunction<TrackerService> bytes) {
+        List<TrackerService> open;
+        synchronized (OPEN) {
+            open = new ArrayList<>(OPEN);
+        }
+        long total = 0;
+        for (TrackerService t : open) {
+            // Every footprint is a few fields kept up to date by the writers, so the gauges read
+            // them without the lock: a figure one write behind is fine, stalling a write isn't.
+            total += bytes.applyAsLong(t);
+        }
+        return total;
+    }
+
+    /**
+     * Makes save() asynchronous: writes happen on a single background thread,
+     * debounceMillis after the first unsaved change. Also registers a shutdown
+     * hook that flushes whatever is still pending.
+     */
+    public void enableBackgroundSaves(long debounceMillis) {
+        if (writer != null) return;
+        saveDebounceMillis = debounceMillis;
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tracker-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        flushOnExit = new Thread(this::flush, "tracker-flush");
+        Runtime.getRuntime().addShutdownHook(flushOnExit);
+    }
+
+    /** Flushes pending changes, stops the background threads and closes the storage. */
+    public void close() {
+        OPEN.remove(this);
+        flush();
+        if (journal == null && snapshot != null && snapshotBehind.getAndSet(false)) {
+            PendingWrite all = readLocked(() -> new PendingWrite(0, allSessions(), allDrills(), targets));
+            snapshot.write(all.sessions(), all.drills(), all.targets());
+        }
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(flushOnExit);
+            } catch (IllegalStateException e) {
+                // Already shutting down; the hook will flush again, which is harmless.
+            }
+        }
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) journal.close();
+        if (storage instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new RuntimeException("Failed closing storage: " + e.getMessage(), e);
+            }
+        }
     }
 
     public void load() {
+        // Registered here rather than in the constructor, so the gauges never see a half-built tracker.
+        OPEN.add(this);
+        long start = System.nanoTime();
+        long stamp = lock.writeLock();
+        try {
+            loadLocked();
+        } finally {
+            unlockWrite(stamp);
+            LOAD_TIME.recordSince(start);
+        }
+    }
+
+    private void loadLocked() {
+        changed.set(0);
         sessions.clear();
         drills.clear();
-        sessions.addAll(storage.loadSessions());
-        drills.addAll(storage.loadDrills());
-        targets = storage.loadTargets().orElse(Targets.defaultTargets());
-        sortSessionsNewestFirst();
-        recalcNextIds();
+        sessionIndex.clear();
+        aggregates.clear();
+        workload.clear();
+        notesIndex.clear();
+        BinarySnapshot.Contents snap = snapshot == null ? null : snapshot.readIfNewerThan(storage.lastModified());
+        if (snap != null) {
+            snap.sessions().forEach(this::loadSession);
+            snap.drills().forEach(this::putDrill);
+            targets = snap.targets();
+        } else {
+            // Parse drills on another thread while sessions load here; sessions still go in first
+            // so each drill can find its session's date for the aggregates.
+            CompletableFuture<List<DrillEntry>> loadedDrills = CompletableFuture.supplyAsync(storage::loadDrills);
+            storage.loadSessions().forEach(this::loadSession);
+            join(loadedDrills).forEach(this::putDrill);
+            targets = storage.loadTargets().orElse(Targets.defaultTargets());
+        }
+        if (journal != null) {
+            journal.replay(this::applyJournalRecord);
+        }
+        recalcNextIdsLocked();
+    }
+
+    /** Puts a stored session back, reporting and skipping one dated beyond what the aggregates can span. */
+    private void loadSession(TrainingSession session) {
+        LocalDate date = session.date();
+        if (date.isBefore(LOADABLE_FROM) || date.isAfter(LOADABLE_TO)) {
+            System.err.println("Skipping session " + session.id() + ": date " + date
+                    + " is outside " + LOADABLE_FROM + ".." + LOADABLE_TO);
+            return;
+        }
+        putSession(session);
+    }
+
+    /**
+     * Releases the write lock, first leaving the aggregates ready for lock-free readers.
+     * The lock is released even if a refresh throws, so one bad write can't wedge every reader.
+     */
+    private void unlockWrite(long stamp) {
+        try {
+            version++;
+            aggregates.refresh();
+            workload.refresh();
+            notesIndex.refresh();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Runs a read without locking, then checks no writer ran meanwhile. If one did,
+     * the result (or any exception from reading half-updated arrays) is discarded
+     * and the read runs again under the read lock. Only for reads that touch
+     * arrays with bounded loops, never ones that walk the TreeMap.
+     */
+    private <T> T readOptimistic(Supplier<T> read) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = read.get();
+                if (lock.validate(stamp)) return result;
+            } catch (RuntimeException e) {
+                // A writer moved the arrays under us; retry under the lock.
+            }
+        }
+        return readLocked(read);
+    }
+
+    private <T> T readLocked(Supplier<T> read) {
+        long stamp = lock.readLock();
+        try {
+            return read.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
     }
 
+    /** Persists pending changes: immediately, or soon on the writer thread if background saves are on. */
     public void save() {
-        storage.saveSessions(sessions);
-        storage.saveDrills(drills);
-        storage.saveTargets(targets);
+        if (writer == null) {
+            persist();
+            return;
+        }
+        if (savePending.compareAndSet(false, true)) {
+            writer.schedule(() -> {
+                savePending.set(false);
+                try {
+                    persist();
+                } catch (RuntimeException e) {
+                    System.err.println("Background save failed: " + e.getMessage());
+                }
+            }, saveDebounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Writes anything still pending and waits for it. Use on exit. */
+    public void flush() {
+        if (writer == null || writer.isShutdown()) {
+            persist();
+            return;
+        }
+        try {
+            writer.submit(this::persist).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new RuntimeException("Failed saving: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void persist() {
+        long start = System.nanoTime();
+        if (journal != null) {
+            journal.flush();
+            if (journal.size() >= COMPACT_AFTER) {
+                compactInBackground();
+            }
+            SAVE_TIME.recordSince(start);
+            return;
+        }
+
+        // Saves only rewrite what changed; the full binary snapshot waits for close().
+        PendingWrite pending = readLocked(() -> captureChanges(false));
+        if (pending == null) return;
+        try {
+            writeSnapshots(pending, false);
+            snapshotBehind.set(true);
+        } catch (RuntimeException e) {
+            markChanged(pending.changed());
+            throw e;
+        } finally {
+            SAVE_TIME.recordSince(start);
+        }
+    }
+
+    private void markChanged(int bits) {
+        changed.getAndUpdate(c -> c | bits);
+    }
+
+    /**
+     * Records a mutation for the next save: straight to the storage as a row write
+     * when it supports them, otherwise as a changed flag for the next file save.
+     * Row writes run on the writer thread when there is one, in order. If one
+     * fails, the flags are set so the next save rewrites those collections whole.
+     *
+     * Called under the write lock. Without a writer thread the row write is only
+     * queued, and the caller runs the returned step once it has released the lock.
+     */
+    private Runnable recordChange(int bits, Runnable rowWrite) {
+        if (rowStorage == null) {
+            markChanged(bits);
+            return NO_ROW_WRITE;
+        }
+        if (writer == null) {
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                try {
+                    rowWrite.run();
+                } catch (RuntimeException e) {
+                    markChanged(bits);
+                    throw e;
+                }
+            }, null);
+            queuedRowWrites.add(task);
+            return () -> runQueuedRowWrites(task);
+        }
+        writer.execute(() -> {
+            try {
+                rowWrite.run();
+            } catch (RuntimeException e) {
+                markChanged(bits);
+                System.err.println("Background save failed: " + e.getMessage());
+            }
+        });
+        return NO_ROW_WRITE;
+    }
+
+    /**
+     * Runs the queued row writes in the order they were queued, then reports how
+     * the caller's own one went. Another caller may already have run it.
+     */
+    private void runQueuedRowWrites(FutureTask<Void> mine) {
+        rowWriteLock.lock();
+        try {
+            FutureTask<Void> next;
+            while ((next = queuedRowWrites.poll()) != null) next.run();
+        } finally {
+            rowWriteLock.unlock();
+        }
+        try {
+            mine.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new RuntimeException("Failed saving: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /** Copies everything currently loaded into another storage, e.g. from CSV into a database. */
+    public void exportTo(Storage target) {
+        PendingWrite all = readLocked(() ->
+            new PendingWrite(SESSIONS_CHANGED | DRILLS_CHANGED | TARGETS_CHANGED, allSessions(), allDrills(), targets));
+        target.saveSessions(all.sessions());
+        target.saveDrills(all.drills());
+        target.saveTargets(all.targets());
+    }
+
+    /**
+     * Rows to persist. Only the collections flagged in {@code changed} get rewritten
+     * in storage; the rest are captured only when the binary snapshot is written too.
+     */
+    private record PendingWrite(int changed, List<TrainingSession> sessions, List<DrillEntry> drills, Targets targets) {}
+
+    /** Takes and clears the changed flags. Callers hold the lock, read is enough. Returns null if nothing changed. */
+    private PendingWrite captureChanges(boolean withSnapshot) {
+        int bits = changed.getAndSet(0);
+        if (bits == 0) return null;
+        boolean everything = withSnapshot && snapshot != null;
+        return new PendingWrite(bits,
+            everything || (bits & SESSIONS_CHANGED) != 0 ? allSessions() : null,
+            everything || (bits & DRILLS_CHANGED) != 0 ? allDrills() : null,
+            targets);
+    }
+
+    private List<TrainingSession> allSessions() {
+        List<TrainingSession> out = new ArrayList<>(sessions.size());
+        for (int slot : sessionIndex.values()) {
+            out.add(sessions.get(slot));
+        }
+        return out;
+    }
+
+    private List<DrillEntry> allDrills() {
+        List<DrillEntry> out = new ArrayList<>(drills.size());
+        for (int slot = 0; slot < drills.highWater(); slot++) {
+            if (drills.isLive(slot)) out.add(drills.get(slot));
+        }
+        return out;
+    }
+
+    /** Storage first, then the binary snapshot, so the snapshot is never older than the data it mirrors. */
+    private void writeSnapshots(PendingWrite w, boolean withSnapshot) {
+        if ((w.changed() & SESSIONS_CHANGED) != 0) storage.saveSessions(w.sessions());
+        if ((w.changed() & DRILLS_CHANGED) != 0) storage.saveDrills(w.drills());
+        if ((w.changed() & TARGETS_CHANGED) != 0) storage.saveTargets(w.targets());
+        if (withSnapshot && snapshot != null) {
+            snapshot.write(w.sessions(), w.drills(), w.targets());
+        }
+    }
+
+    private void compactInBackground() {
+        if (!compacting.compareAndSet(false, true)) return;
+        PendingWrite pending = rotateJournal();
+
+        compactor().submit(() -> {
+            try {
+                writeRotated(pending);
+            } catch (RuntimeException e) {
+                System.err.println("Journal compaction failed: " + e.getMessage());
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    /**
+     * Folds the journal into storage and the snapshot on this thread, once any
+     * background compaction has finished, so the two can't write out of order.
+     */
+    private void compactNow() {
+        while (!compacting.compareAndSet(false, true)) {
+            try {
+                compactor().submit(() -> { }).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted waiting for journal compaction", e);
+            } catch (ExecutionException e) {
+                // A no-op can't fail.
+            }
+        }
+        try {
+            writeRotated(rotateJournal());
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    /** Captures everything and starts a new journal segment. The read lock keeps new records out in between. */
+    private PendingWrite rotateJournal() {
+        return readLocked(() -> {
+            PendingWrite captured = captureChanges(true);
+            journal.rotate();
+            return captured;
+        });
+    }
+
+    private void writeRotated(PendingWrite pending) {
+        try {
+            if (pending != null) writeSnapshots(pending, true);
+            journal.dropRotated();
+        } catch (RuntimeException e) {
+            // The rotated segment stays on disk and is replayed next load.
+            if (pending != null) markChanged(pending.changed());
+            throw e;
+        }
+    }
+
+    private synchronized ExecutorService compactor() {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "journal-compactor");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return compactor;
+    }
+
+    /** Replays one journal record. Every op is an upsert or delete by id, so replaying twice is harmless. */
+    private void applyJournalRecord(CsvReader record) {
+        switch (record.getChar(0)) {
+            case Journal.SESSION -> {
+                loadSession(TrainingSession.fromCsv(record, 1));
+                markChanged(SESSIONS_CHANGED);
+            }
+            case Journal.DELETE_SESSION -> {
+                if (removeSession(record.getInt(1))) markChanged(SESSIONS_CHANGED | DRILLS_CHANGED);
+            }
+            case Journal.DRILL -> {
+                putDrill(DrillEntry.fromCsv(record, 1));
+                markChanged(DRILLS_CHANGED);
+            }
+            case Journal.TARGETS -> {
+                targets = Targets.fromCsv(record, 1);
+                markChanged(TARGETS_CHANGED);
+            }
+            default -> throw new IllegalArgumentException("Bad journal record: " + record);
+        }
     }
 
     public void recalcNextIds() {
+        long stamp = lock.writeLock();
+        try {
+            recalcNextIdsLocked();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    private void recalcNextIdsLocked() {
         int maxSession = 0;
-        for (TrainingSession s : sessions) {
-            if (s.id() > maxSession) maxSession = s.id();
+        for (int slot = 0; slot < sessions.highWater(); slot++) {
+            if (sessions.isLive(slot) && sessions.id(slot) > maxSession) maxSession = sessions.id(slot);
         }
-        nextSessionId = maxSession + 1;
+        nextSessionId.set(maxSession + 1);
 
         int maxDrill = 0;
-        for (DrillEntry d : drills) {
-            if (d.id() > maxDrill) maxDrill = d.id();
+        for (int slot = 0; slot < drills.highWater(); slot++) {
+            if (drills.isLive(slot) && drills.id(slot) > maxDrill) maxDrill = drills.id(slot);
         }
-        nextDrillId = maxDrill + 1;
+        nextDrillId.set(maxDrill + 1);
     }
 
+    /** Hands out each id once, whichever thread asks. */
     public int nextSessionId() {
-        return nextSessionId++;
+        return nextSessionId.getAndIncrement();
     }
 
     public int nextDrillId() {
-        return nextDrillId++;
+        return nextDrillId.getAndIncrement();
     }
 
     public Targets getTargets() {
@@ -62,116 +599,747 @@ public class TrackerService {
     }
 
     public void setTargets(Targets targets) {
-        this.targets = targets;
+        Runnable rowWrite;
+        long stamp = lock.writeLock();
+        try {
+            this.targets = targets;
+            rowWrite = recordChange(TARGETS_CHANGED, () -> storage.saveTargets(targets));
+            if (journal != null) journal.append(Journal.TARGETS, targets::writeCsv);
+        } finally {
+            unlockWrite(stamp);
+        }
+        rowWrite.run();
     }
 
     public void addSession(TrainingSession session) {
-        sessions.add(session);
-        sortSessionsNewestFirst();
+        requireDate(session);
+        Runnable rowWrite;
+        long stamp = lock.writeLock();
+        try {
+            putSession(session);
+            rowWrite = recordChange(SESSIONS_CHANGED, () -> rowStorage.putSession(session));
+            if (journal != null) journal.append(Journal.SESSION, session::writeCsv);
+        } finally {
+            unlockWrite(stamp);
+        }
+        rowWrite.run();
     }
 
-    public void addDrill(DrillEntry drill) {
-        drills.add(drill);
+    /** Adds the drill, or returns false if its session doesn't exist; checked under the same lock as the add. */
+    public boolean addDrill(DrillEntry drill) {
+        Runnable rowWrite;
+        long stamp = lock.writeLock();
+        try {
+            if (sessions.slotOf(drill.sessionId()) < 0) {
+                return false;
+            }
+            putDrill(drill);
+            rowWrite = recordChange(DRILLS_CHANGED, () -> rowStorage.putDrill(drill));
+            if (journal != null) journal.append(Journal.DRILL, drill::writeCsv);
+        } finally {
+            unlockWrite(stamp);
+        }
+        rowWrite.run();
+        return true;
     }
 
-    public List<TrainingSession> getLastSessions(int n) {
-        List<TrainingSession> out = new ArrayList<>();
-        for (int i = 0; i < sessions.size() && i < n; i++) {
-            out.add(sessions.get(i));
+    /**
+     * Adds many new rows under one write lock. Rows go straight into the tables and
+     * the date index and aggregates are rebuilt once at the end, instead of being
+     * updated row by row. Ids must not be in use yet.
+     * Without a journal the rows persist with the next save() like any other change;
+     * with one they are written to storage in one go before this returns, rather
+     * than journaled row by row.
+     */
+    public void importAll(List<TrainingSession> newSessions, List<DrillEntry> newDrills) {
+        long stamp = lock.writeLock();
+        try {
+            importLocked(newSessions, newDrills);
+        } finally {
+            unlockWrite(stamp);
         }
-        return out;
+        if (journal != null) compactNow();
     }
 
-    public List<DrillEntry> getDrillsForSession(int sessionId) {
-        List<DrillEntry> out = new ArrayList<>();
-        for (DrillEntry d : drills) {
-            if (d.sessionId() == sessionId) {
-                out.add(d);
+    /**
+     * Like importAll(), but every row gets a fresh id instead of its own, e.g. a season
+     * exported from another device. Drills name their session by its id in newSessions.
+     * Ids are handed out only once the rows have passed, so a rejected import uses none.
+     */
+    public void importRenumbered(List<TrainingSession> newSessions, List<DrillEntry> newDrills) {
+        long stamp = lock.writeLock();
+        try {
+            for (TrainingSession s : newSessions) {
+                String problem = checkDate(s.date());
+                if (problem != null) throw new IllegalArgumentException("Session " + s.id() + ": " + problem);
             }
+            Map<Integer, Integer> sessionIds = new HashMap<>();
+            for (TrainingSession s : newSessions) {
+                if (sessionIds.containsKey(s.id())) throw new IllegalArgumentException("Duplicate session id: " + s.id());
+                sessionIds.put(s.id(), 0);
+            }
+            for (DrillEntry d : newDrills) {
+                if (!sessionIds.containsKey(d.sessionId())) {
+                    throw new IllegalArgumentException("Drill refers to unknown session " + d.sessionId());
+                }
+            }
+
+            List<TrainingSession> renumbered = new ArrayList<>(newSessions.size());
+            for (TrainingSession s : newSessions) {
+                int id = nextSessionId.getAndIncrement();
+                sessionIds.put(s.id(), id);
+                renumbered.add(new TrainingSession(id, s.date(), s.type(), s.minutes(), s.intensity(), s.notes()));
+            }
+            List<DrillEntry> renumberedDrills = new ArrayList<>(newDrills.size());
+            for (DrillEntry d : newDrills) {
+                renumberedDrills.add(new DrillEntry(nextDrillId.getAndIncrement(), sessionIds.get(d.sessionId()),
+                    d.drillType(), d.reps(), d.success(), d.notes()));
+            }
+            importLocked(renumbered, renumberedDrills);
+        } finally {
+            unlockWrite(stamp);
         }
-        return out;
+        if (journal != null) compactNow();
     }
 
-    public boolean deleteSession(int sessionId) {
-        boolean removed = false;
+    private void importLocked(List<TrainingSession> newSessions, List<DrillEntry> newDrills) {
+        for (TrainingSession s : newSessions) {
+            if (sessions.slotOf(s.id()) >= 0) throw new IllegalArgumentException("Session id already in use: " + s.id());
+            String problem = checkDate(s.date());
+            if (problem != null) throw new IllegalArgumentException("Session " + s.id() + ": " + problem);
+        }
+        for (DrillEntry d : newDrills) {
+            if (drills.slotOf(d.id()) >= 0) throw new IllegalArgumentException("Drill id already in use: " + d.id());
+        }
+        for (TrainingSession s : newSessions) {
+            sessions.insert(s);
+            nextSessionId.accumulateAndGet(s.id() + 1, Math::max);
+        }
+        for (DrillEntry d : newDrills) {
+            drills.insert(d);
+            nextDrillId.accumulateAndGet(d.id() + 1, Math::max);
+        }
+        rebuildIndexes();
+
+        // Bulk rows skip row writes and the journal: the collections are replaced whole.
+        markChanged(SESSIONS_CHANGED | DRILLS_CHANGED);
+    }
+
+    private void rebuildIndexes() {
+        sessionIndex.clear();
+        aggregates.clear();
+        workload.clear();
+        notesIndex.clear();
+        for (int slot = 0; slot < sessions.highWater(); slot++) {
+            if (!sessions.isLive(slot)) continue;
+            sessionIndex.put(sessionKey(sessions.epochDay(slot), sessions.id(slot)), slot);
+            aggregateSession(slot, 1);
+            indexSessionNotes(slot, true);
+        }
+        for (int slot = 0; slot < drills.highWater(); slot++) {
+            if (!drills.isLive(slot)) continue;
+            aggregateDrill(slot, 1);
+            indexDrillNotes(slot, true);
+        }
+    }
+
+    /** Starts a unit of work; nothing is applied until its commit(). */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /**
+     * Staged adds, edits and deletes that are applied together or not at all,
+     * e.g. a session and its dozen drills. commit() takes the write lock once,
+     * validates every change against the current data plus the changes staged
+     * before it, then applies them, journals them as one atomic unit and saves
+     * once. If validation fails nothing is applied; if applying fails part way,
+     * the changes already made are undone in reverse order.
+     */
+    public final class Batch {
+        private enum Kind { ADD_SESSION, UPDATE_SESSION, DELETE_SESSION, ADD_DRILL, SET_TARGETS }
+
+        private record Change(Kind kind, TrainingSession session, DrillEntry drill, int sessionId, Targets targets) {}
+
+        private final List<Change> changes = new ArrayList<>();
+        private boolean committed;
+
+        private Batch() {}
+
+        public Batch addSession(TrainingSession session) {
+            return stage(new Change(Kind.ADD_SESSION, session, null, session.id(), null));
+        }
+
+        public Batch updateSession(TrainingSession session) {
+            return stage(new Change(Kind.UPDATE_SESSION, session, null, session.id(), null));
+        }
+
+        public Batch deleteSession(int sessionId) {
+            return stage(new Change(Kind.DELETE_SESSION, null, null, sessionId, null));
+        }
+
+        public Batch addDrill(DrillEntry drill) {
+            return stage(new Change(Kind.ADD_DRILL, null, drill, drill.sessionId(), null));
+        }
+
+        public Batch setTargets(Targets targets) {
+            return stage(new Change(Kind.SET_TARGETS, null, null, 0, targets));
+        }
+
+        public int size() {
+            return changes.size();
+        }
+
+        private Batch stage(Change change) {
+            if (committed) throw new IllegalStateException("Batch already committed");
+            changes.add(change);
+            return this;
+        }
+
+        /** Applies every staged change, or throws IllegalArgumentException naming the first bad one. */
+        public void commit() {
+            if (committed) throw new IllegalStateException("Batch already committed");
+            committed = true;
+            if (changes.isEmpty()) return;
+            Runnable rowWrite;
+            long stamp = lock.writeLock();
+            try {
+                validate();
+                rowWrite = applyAll();
+            } finally {
+                unlockWrite(stamp);
+            }
+            rowWrite.run();
+            save();
+        }
+
+        private void validate() {
+            Set<Integer> added = new HashSet<>();
+            Set<Integer> deleted = new HashSet<>();
+            Set<Integer> addedDrills = new HashSet<>();
+            for (int i = 0; i < changes.size(); i++) {
+                Change c = changes.get(i);
+                boolean exists = added.contains(c.sessionId())
+                    || (!deleted.contains(c.sessionId()) && sessions.slotOf(c.sessionId()) >= 0);
+                String problem = switch (c.kind()) {
+                    case ADD_SESSION -> exists ? "session " + c.sessionId() + " already exists" : checkSession(c.session());
+                    case UPDATE_SESSION -> !exists ? "no session " + c.sessionId() : checkSession(c.session());
+                    case DELETE_SESSION -> !exists ? "no session " + c.sessionId() : null;
+                    case ADD_DRILL -> !exists ? "no session " + c.sessionId() : checkDrill(c.drill(), addedDrills);
+                    case SET_TARGETS -> c.targets().sessionsPerWeek() < 0 || c.targets().wallBallRepsPerWeek() < 0
+                        || c.targets().gymMinutesPerWeek() < 0 ? "targets must not be negative" : null;
+                };
+                if (problem != null) throw new RejectedChange(i, "Batch change " + (i + 1) + ": " + problem);
+                switch (c.kind()) {
+                    case ADD_SESSION -> {
+                        added.add(c.sessionId());
+                        deleted.remove(c.sessionId());
+                    }
+                    case DELETE_SESSION -> {
+                        added.remove(c.sessionId());
+                        deleted.add(c.sessionId());
+                    }
+                    case ADD_DRILL -> addedDrills.add(c.drill().id());
+                    default -> {}
+                }
+            }
+        }
+
+        private static String checkSession(TrainingSession s) {
+            if (s.date() == null || s.type() == null) return "date and type are required";
+            String date = checkDate(s.date());
+            if (date != null) return date;
+            if (s.intensity() < 1 || s.intensity() > 5) return "intensity must be 1-5";
+            if (s.minutes() < 0) return "minutes must not be negative";
+            return null;
+        }
+
+        private String checkDrill(DrillEntry d, Set<Integer> addedDrills) {
+            if (d.drillType() == null) return "drill type is required";
+            if (d.reps() < 0 || d.success() < 0) return "reps and success must not be negative";
+            if (addedDrills.contains(d.id()) || drills.slotOf(d.id()) >= 0) return "drill " + d.id() + " already exists";
+            return null;
+        }
 
-        for (int i = 0; i < sessions.size(); i++) {
-            if (sessions.get(i).id() == sessionId) {
-                sessions.remove(i);
-                removed = true;
-                break;
+        /** Returns the row write to run once the lock is released. */
+        private Runnable applyAll() {
+            List<Runnable> undo = new ArrayList<>();
+            List<Runnable> rowWrites = new ArrayList<>();
+            int bits = 0;
+            try {
+                for (Change c : changes) {
+                    bits |= apply(c, undo, rowWrites);
+                }
+                if (journal != null) {
+                    journal.appendAtomically(() -> changes.forEach(this::journal));
+                }
+            } catch (RuntimeException e) {
+                for (int i = undo.size() - 1; i >= 0; i--) {
+                    undo.get(i).run();
+                }
+                throw e;
             }
+            return recordChange(bits, () -> rowStorage.batch(() -> rowWrites.forEach(Runnable::run)));
         }
-        if (removed) {
-            for (int i = drills.size() - 1; i >= 0; i--) {
-                if (drills.get(i).sessionId() == sessionId) {
-                    drills.remove(i);
+
+        /** Applies one change, recording how to undo it and how to write it as rows. Returns its changed bits. */
+        private int apply(Change c, List<Runnable> undo, List<Runnable> rowWrites) {
+            switch (c.kind()) {
+                case ADD_SESSION, UPDATE_SESSION -> {
+                    int slot = sessions.slotOf(c.sessionId());
+                    TrainingSession previous = slot >= 0 ? sessions.get(slot) : null;
+                    // Drills already waiting for a new session must outlive undoing it.
+                    List<DrillEntry> waiting = previous == null ? drills.forSession(c.sessionId()) : List.of();
+                    putSession(c.session());
+                    undo.add(previous != null ? () -> putSession(previous) : () -> {
+                        removeSession(c.sessionId());
+                        waiting.forEach(TrackerService.this::putDrill);
+                    });
+                    rowWrites.add(() -> rowStorage.putSession(c.session()));
+                    return SESSIONS_CHANGED;
                 }
+                case DELETE_SESSION -> {
+                    TrainingSession previous = sessions.get(sessions.slotOf(c.sessionId()));
+                    List<DrillEntry> previousDrills = drills.forSession(c.sessionId());
+                    removeSession(c.sessionId());
+                    undo.add(() -> {
+                        putSession(previous);
+                        previousDrills.forEach(TrackerService.this::putDrill);
+                    });
+                    rowWrites.add(() -> rowStorage.deleteSession(c.sessionId()));
+                    return SESSIONS_CHANGED | DRILLS_CHANGED;
+                }
+                case ADD_DRILL -> {
+                    putDrill(c.drill());
+                    undo.add(() -> removeDrill(c.drill().id()));
+                    rowWrites.add(() -> rowStorage.putDrill(c.drill()));
+                    return DRILLS_CHANGED;
+                }
+                case SET_TARGETS -> {
+                    Targets previous = targets;
+                    targets = c.targets();
+                    undo.add(() -> targets = previous);
+                    rowWrites.add(() -> storage.saveTargets(c.targets()));
+                    return TARGETS_CHANGED;
+                }
+                default -> throw new IllegalStateException("Unknown change " + c.kind());
+            }
+        }
+
+        private void journal(Change c) {
+            switch (c.kind()) {
+                case ADD_SESSION, UPDATE_SESSION -> journal.append(Journal.SESSION, c.session()::writeCsv);
+                case DELETE_SESSION -> journal.append(Journal.DELETE_SESSION, w -> w.field(c.sessionId()));
+                case ADD_DRILL -> journal.append(Journal.DRILL, c.drill()::writeCsv);
+                case SET_TARGETS -> journal.append(Journal.TARGETS, c.targets()::writeCsv);
             }
         }
-        return removed;
     }
 
-    public boolean updateSession(TrainingSession updated) {
-        for (int i = 0; i < sessions.size(); i++) {
-            if (sessions.get(i).id() == updated.id()) {
-                sessions.set(i, updated);
-                sortSessionsNewestFirst();
-                return true;
+    /** Thrown by Batch.commit() when a staged change fails validation; index() is its position in the batch. */
+    public static final class RejectedChange extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+        private final int index;
+
+        RejectedChange(int index, String message) {
+            super(message);
+            this.index = index;
+        }
+
+        public int index() {
+            return index;
+        }
+    }
+
+    /** Inserts or replaces a drill, keeping the per-session chain and aggregates in step. */
+    private void putDrill(DrillEntry drill) {
+        nextDrillId.accumulateAndGet(drill.id() + 1, Math::max);
+        int previous = drills.slotOf(drill.id());
+        if (previous >= 0) {
+            aggregateDrill(previous, -1);
+            indexDrillNotes(previous, false);
+            drills.remove(previous);
+        }
+        int slot = drills.insert(drill);
+        aggregateDrill(slot, 1);
+        indexDrillNotes(slot, true);
+    }
+
+    private void removeDrill(int drillId) {
+        int slot = drills.slotOf(drillId);
+        if (slot < 0) return;
+        aggregateDrill(slot, -1);
+        indexDrillNotes(slot, false);
+        drills.remove(slot);
+    }
+
+    private void aggregateDrill(int drillSlot, int sign) {
+        int owner = sessions.slotOf(drills.sessionId(drillSlot));
+        if (owner >= 0) {
+            aggregates.addDrill(sessions.epochDay(owner), drills.typeOrdinal(drillSlot),
+                drills.reps(drillSlot), drills.success(drillSlot), sign);
+        }
+    }
+
+    // Notes are filed under the session's date; like the aggregates, a drill whose session is
+    // missing is left out until putSession() brings the session in.
+    private void indexSessionNotes(int slot, boolean add) {
+        String notes = sessions.notes(slot);
+        if (notes.isEmpty()) return;
+        long key = NotesIndex.key(sessions.epochDay(slot), false, sessions.id(slot));
+        if (add) notesIndex.add(key, notes);
+        else notesIndex.remove(key, notes);
+    }
+
+    private void indexDrillNotes(int drillSlot, boolean add) {
+        String notes = drills.notes(drillSlot);
+        int owner = sessions.slotOf(drills.sessionId(drillSlot));
+        if (notes.isEmpty() || owner < 0) return;
+        long key = NotesIndex.key(sessions.epochDay(owner), true, drills.id(drillSlot));
+        if (add) notesIndex.add(key, notes);
+        else notesIndex.remove(key, notes);
+    }
+
+    private void aggregateSession(int slot, int sign) {
+        aggregates.addSession(sessions.epochDay(slot), sessions.typeOrdinal(slot),
+            sessions.minutes(slot), sessions.intensity(slot), sign);
+        workload.add(sessions.epochDay(slot), (long) sign * sessions.minutes(slot) * sessions.intensity(slot));
+    }
+
+    public List<TrainingSession> getLastSessions(int n) {
+        return readLocked(() -> {
+            List<TrainingSession> out = new ArrayList<>();
+            for (int slot : sessionIndex.values()) {
+                if (out.size() >= n) break;
+                out.add(sessions.get(slot));
             }
+            return out;
+        });
+    }
+
+    /** Changes whenever the data does, e.g. for HTTP ETags. */
+    public long version() {
+        return readOptimistic(() -> version);
+    }
+
+    public int sessionCount() {
+        return readOptimistic(sessions::size);
+    }
+
+    /**
+     * A window of the newest-first session list. The start is located through the
+     * per-day session counts, so any page costs O(log n + limit) rather than a walk
+     * from the head.
+     */
+    public List<TrainingSession> getSessionsPage(int offset, int limit) {
+        return readLocked(() -> sessionsPage(offset, limit));
+    }
+
+    private List<TrainingSession> sessionsPage(int offset, int limit) {
+        List<TrainingSession> out = new ArrayList<>();
+        int total = sessions.size();
+        if (offset < 0 || offset >= total || limit <= 0) return out;
+
+        // offset counts from the newest; the day lookup counts from the oldest.
+        long fromOldest = total - 1L - offset;
+        long day = aggregates.dayOfNth(DailyAggregates.SESSIONS, fromOldest);
+        if (day == Long.MIN_VALUE) return out;
+        long olderThanDay = aggregates.sum(Long.MIN_VALUE, day - 1, DailyAggregates.SESSIONS);
+        long onDay = aggregates.dayValue(day, DailyAggregates.SESSIONS);
+        long skipWithinDay = onDay - 1 - (fromOldest - olderThanDay);
+
+        for (int slot : sessionIndex.tailMap(sessionKey(day, Integer.MAX_VALUE), true).values()) {
+            if (skipWithinDay > 0) {
+                skipWithinDay--;
+                continue;
+            }
+            if (out.size() >= limit) break;
+            out.add(sessions.get(slot));
         }
-        return false;
+        return out;
     }
 
-    public WeeklyStats getWeeklyStats(LocalDate from, LocalDate to) {
-        List<TrainingSession> weekSessions = new ArrayList<>();
-        for (TrainingSession s : sessions) {
-            boolean inRange = !s.date().isBefore(from) && !s.date().isAfter(to);
-            if (inRange) {
-                weekSessions.add(s);
+    /** Position of a session in the newest-first list, or -1 if it doesn't exist. */
+    public int indexOfSession(int sessionId) {
+        return readLocked(() -> {
+            int slot = sessions.slotOf(sessionId);
+            if (slot < 0) return -1;
+            long day = sessions.epochDay(slot);
+            long newerDays = aggregates.sum(day + 1, Long.MAX_VALUE, DailyAggregates.SESSIONS);
+            int sameDayAhead = sessionIndex.subMap(sessionKey(day, Integer.MAX_VALUE), true, sessionKey(day, sessionId), false).size();
+            return (int) newerDays + sameDayAhead;
+        });
+    }
+
+    /**
+     * A window of the sessions dated from..to, newest first. Like getSessionsPage(), the
+     * start is found through the per-day session counts, so a page costs O(log n + limit).
+     */
+    public List<TrainingSession> getSessionsBetween(LocalDate from, LocalDate to, int offset, int limit) {
+        if (from.isAfter(to) || offset < 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        return readLocked(() -> {
+            long newer = aggregates.sum(to.toEpochDay() + 1, Long.MAX_VALUE, DailyAggregates.SESSIONS);
+            long inRange = aggregates.sum(from.toEpochDay(), to.toEpochDay(), DailyAggregates.SESSIONS);
+            if (offset >= inRange) return new ArrayList<TrainingSession>();
+            return sessionsPage((int) (newer + offset), (int) Math.min(limit, inRange - offset));
+        });
+    }
+
+    /** Sessions dated from..to inclusive, newest first. Only walks entries inside the range. */
+    public List<TrainingSession> getSessionsBetween(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        return readLocked(() -> {
+            List<TrainingSession> out = new ArrayList<>();
+            for (int slot : sessionIndex.subMap(
+                    sessionKey(to.toEpochDay(), Integer.MAX_VALUE), true,
+                    sessionKey(from.toEpochDay(), 0), true).values()) {
+                out.add(sessions.get(slot));
             }
-        }   
+            return out;
+        });
+    }
 
-        int totalMinutes = 0;
-        int load = 0;
-        int[] minutesByType = new int[SessionType.values().length];
+    private static long sessionKey(long epochDay, int id) {
+        return (epochDay << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /** Null if sessions may be dated {@code date}, otherwise what is wrong with it. */
+    public static String checkDate(LocalDate date) {
+        if (date == null) return "date is required";
+        if (date.isBefore(EARLIEST_DATE)) return "date " + date + " is before " + EARLIEST_DATE;
+        LocalDate latest = LocalDate.now().plusDays(MAX_DAYS_AHEAD);
+        if (date.isAfter(latest)) return "date " + date + " is after " + latest;
+        return null;
+    }
+
+    private static void requireDate(TrainingSession session) {
+        String problem = checkDate(session.date());
+        if (problem != null) throw new IllegalArgumentException("Session " + session.id() + ": " + problem);
+    }
 
-        for (TrainingSession s : weekSessions) {
-            totalMinutes += s.minutes();
-            load += s.minutes() * s.intensity();
-            minutesByType[s.type().ordinal()] += s.minutes();
+    /** Inserts or replaces a session by id, re-keying it if the date changed. */
+    private void putSession(TrainingSession session) {
+        // Ids supplied from outside (imports, other devices) must never be handed out again.
+        nextSessionId.accumulateAndGet(session.id() + 1, Math::max);
+        int slot = sessions.slotOf(session.id());
+        boolean added = slot < 0;
+        if (added) {
+            slot = sessions.insert(session);
+        } else {
+            int oldDay = sessions.epochDay(slot);
+            sessionIndex.remove(sessionKey(oldDay, session.id()));
+            aggregateSession(slot, -1);
+            indexSessionNotes(slot, false);
+            sessions.set(slot, session);
+            if (oldDay != sessions.epochDay(slot)) {
+                moveDrillAggregates(session.id(), oldDay, sessions.epochDay(slot));
+            }
         }
+        sessionIndex.put(sessionKey(sessions.epochDay(slot), session.id()), slot);
+        aggregateSession(slot, 1);
+        indexSessionNotes(slot, true);
+        if (added) {
+            // Drills that arrived before their session (e.g. replayed out of order) were left out until now.
+            for (int d : drills.slotsForSession(session.id())) {
+                aggregateDrill(d, 1);
+                indexDrillNotes(d, true);
+            }
+        }
+    }
 
+    /** Also re-files the drills' notes, which are keyed by the session's date. */
+    private void moveDrillAggregates(int sessionId, int fromDay, int toDay) {
+        for (int d : drills.slotsForSession(sessionId)) {
+            aggregates.addDrill(fromDay, drills.typeOrdinal(d), drills.reps(d), drills.success(d), -1);
+            aggregates.addDrill(toDay, drills.typeOrdinal(d), drills.reps(d), drills.success(d), 1);
+            String notes = drills.notes(d);
+            if (notes.isEmpty()) continue;
+            notesIndex.remove(NotesIndex.key(fromDay, true, drills.id(d)), notes);
+            notesIndex.add(NotesIndex.key(toDay, true, drills.id(d)), notes);
+        }
+    }
+
+    /** Walks the session's drill chain, so it takes the read lock rather than reading optimistically. */
+    public List<DrillEntry> getDrillsForSession(int sessionId) {
+        return readLocked(() -> drills.forSession(sessionId));
+    }
 
-        Set<Integer> weekSessionIds = new HashSet<>();
-        for (TrainingSession s : weekSessions) {
-            weekSessionIds.add(s.id());
+    public boolean deleteSession(int sessionId) {
+        Runnable rowWrite;
+        long stamp = lock.writeLock();
+        try {
+            if (!removeSession(sessionId)) {
+                return false;
+            }
+            rowWrite = recordChange(SESSIONS_CHANGED | DRILLS_CHANGED, () -> rowStorage.deleteSession(sessionId));
+            if (journal != null) journal.append(Journal.DELETE_SESSION, w -> w.field(sessionId));
+        } finally {
+            unlockWrite(stamp);
         }
+        rowWrite.run();
+        return true;
+    }
 
-        int[] repsByDrill = new int[DrillType.values().length];
-        int[] successByDrill = new int[DrillType.values().length];
+    private boolean removeSession(int sessionId) {
+        int slot = sessions.slotOf(sessionId);
+        if (slot < 0) {
+            return false;
+        }
 
-        for (DrillEntry d : drills) {
-            if (!weekSessionIds.contains(d.sessionId())) continue;
+        for (int d : drills.slotsForSession(sessionId)) {
+            aggregateDrill(d, -1);
+            indexDrillNotes(d, false);
+            drills.remove(d);
+        }
+        sessionIndex.remove(sessionKey(sessions.epochDay(slot), sessionId));
+        aggregateSession(slot, -1);
+        indexSessionNotes(slot, false);
+        sessions.remove(slot);
+        return true;
+    }
 
-            int drillIndex = d.drillType().ordinal();
-            repsByDrill[drillIndex] += d.reps();
-            successByDrill[drillIndex] += d.success();
+    public boolean updateSession(TrainingSession updated) {
+        requireDate(updated);
+        Runnable rowWrite;
+        long stamp = lock.writeLock();
+        try {
+            if (sessions.slotOf(updated.id()) < 0) {
+                return false;
+            }
+            putSession(updated);
+            rowWrite = recordChange(SESSIONS_CHANGED, () -> rowStorage.putSession(updated));
+            if (journal != null) journal.append(Journal.SESSION, updated::writeCsv);
+        } finally {
+            unlockWrite(stamp);
+        }
+        rowWrite.run();
+        return true;
+    }
+
+    /** Answered from the Fenwick arrays only, so it normally runs without taking the lock. */
+    public WeeklyStats getWeeklyStats(LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        TrackerEvents.StatsQuery event = new TrackerEvents.StatsQuery();
+        event.begin();
+        long[] totals = readOptimistic(() -> aggregates.sum(from.toEpochDay(), to.toEpochDay()));
+
+        int[] minutesByType = new int[SessionType.values().length];
+        for (int i = 0; i < minutesByType.length; i++) {
+            minutesByType[i] = (int) totals[DailyAggregates.MINUTES_BY_TYPE + i];
+        }
+
+        int[] repsByDrill = new int[DrillType.values().length];
+        int[] successByDrill = new int[DrillType.values().length];
+        for (int i = 0; i < repsByDrill.length; i++) {
+            repsByDrill[i] = (int) totals[DailyAggregates.REPS_BY_DRILL + i];
+            successByDrill[i] = (int) totals[DailyAggregates.SUCCESS_BY_DRILL + i];
         }
 
-        return new WeeklyStats(
-            weekSessions.size(),
-            totalMinutes,
-            load,
+        WeeklyStats stats = new WeeklyStats(
+            (int) totals[DailyAggregates.SESSIONS],
+            (int) totals[DailyAggregates.MINUTES],
+            (int) totals[DailyAggregates.LOAD],
             minutesByType,
             repsByDrill,
             successByDrill
         );
+        STATS_TIME.recordSince(start);
+        if (event.shouldCommit()) {
+            event.from = from.toString();
+            event.to = to.toString();
+            event.sessions = stats.sessionCount();
+            event.commit();
+        }
+        return stats;
     }
 
-    private void sortSessionsNewestFirst() {
-        sessions.sort(Comparator.comparing(TrainingSession::date).reversed());
+    /** Daily load, acute and chronic loads and ACWR for every day from..to, oldest first. */
+    public List<WorkloadSeries.Day> getWorkload(LocalDate from, LocalDate to) {
+        return readOptimistic(() -> workload.days(from, to));
+    }
 
+    /** The workload figures for one day, e.g. today's ratio. */
+    public WorkloadSeries.Day getWorkloadOn(LocalDate day) {
+        return getWorkload(day, day).get(0);
+    }
+
+    /**
+     * Per-day values from..to inclusive, one array per metric (the DailyAggregates
+     * constants), copied from the cached aggregates in a single consistent read.
+     */
+    public long[][] getDailySeries(LocalDate from, LocalDate to, int... metrics) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        if (fromDay > toDay) throw new IllegalArgumentException("from is after to");
+        return readOptimistic(() -> {
+            long[][] out = new long[metrics.length][];
+            for (int i = 0; i < metrics.length; i++) {
+                out[i] = aggregates.days(fromDay, toDay, metrics[i]);
+            }
+            return out;
+        });
+    }
+
+    /** Date of the oldest session, if there are any. */
+    public Optional<LocalDate> firstSessionDate() {
+        return sessionDate(0);
+    }
+
+    /** Date of the newest session, if there are any. */
+    public Optional<LocalDate> lastSessionDate() {
+        return sessionDate(-1);
+    }
+
+    // n counts from the oldest session; -1 is the newest.
+    private Optional<LocalDate> sessionDate(long n) {
+        long day = readOptimistic(() -> {
+            long total = aggregates.sum(Long.MIN_VALUE, Long.MAX_VALUE, DailyAggregates.SESSIONS);
+            return total == 0 ? Long.MIN_VALUE : aggregates.dayOfNth(DailyAggregates.SESSIONS, n < 0 ? total + n : n);
+        });
+        return day == Long.MIN_VALUE ? Optional.empty() : Optional.of(LocalDate.ofEpochDay(day));
+    }
+
+    /**
+     * The newest notes, session or drill, containing every word of the query, newest
+     * first, at most limit of them. A word ending in * matches as a prefix, e.g. "hamstr*".
+     */
+    public List<NoteMatch> searchNotes(String query, int limit) {
+        long start = System.nanoTime();
+        List<NoteMatch> out = readLocked(() -> {
+            List<NoteMatch> matches = new ArrayList<>();
+            for (long key : notesIndex.search(query, limit)) {
+                if (NotesIndex.isDrill(key)) {
+                    int d = drills.slotOf(NotesIndex.id(key));
+                    matches.add(new NoteMatch(sessions.get(sessions.slotOf(drills.sessionId(d))), drills.get(d)));
+                } else {
+                    matches.add(new NoteMatch(sessions.get(sessions.slotOf(NotesIndex.id(key))), null));
+                }
+            }
+            return matches;
+        });
+        SEARCH_TIME.recordSince(start);
+        return out;
+    }
+
+    /** A search hit: a session's own notes, or one of its drills' when drill is set. */
+    public record NoteMatch(TrainingSession session, DrillEntry drill) {
+        public LocalDate date() {
+            return session.date();
+        }
+
+        public String notes() {
+            return drill == null ? session.notes() : drill.notes();
+        }
+
+        public String neatOneLine() {
+            return drill == null
+                ? session.neatOneLine()
+                : date() + " | drill " + drill.drillType() + " in session " + session.id() + " | " + drill.notes() + " | ID " + drill.id();
+        }
     }
 
     public record WeeklyStats(
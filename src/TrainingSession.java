@@ -1,9 +1,12 @@
 import java.time.LocalDate;
+import java.util.Map;
 
 
 public record TrainingSession(int id, LocalDate date,
     SessionType type, int minutes, int intensity, String notes) 
     {
+        private static final SessionType[] TYPES = SessionType.values();
+
         public static TrainingSession create(int id, LocalDate date, SessionType type,
             int minutes, int intensity, String notes) {
                 return new TrainingSession(
@@ -30,23 +33,53 @@ public record TrainingSession(int id, LocalDate date,
             return date + " | " + type + " | " + minutes + " min | int " + intensity + n + " | ID " + id;
         }
         public String toCsv() {
-            return id + "," +
-                date + "," +
-                type + "," +
-                minutes + "," +
-                intensity + "," +
-                CsvUtil.clean(notes);
+            return CsvWriter.line(this::writeCsv);
+        }
+
+        public void writeCsv(CsvWriter w) {
+            w.field(id)
+                .field(date)
+                .field(type)
+                .field(minutes)
+                .field(intensity)
+                .field(notes);
+        }
+
+        public void writeJson(JsonWriter w) {
+            w.beginObject()
+                .name("id").value(id)
+                .name("date").value(date)
+                .name("type").value(type)
+                .name("minutes").value(minutes)
+                .name("intensity").value(intensity)
+                .name("notes").value(notes)
+                .endObject();
         }
+
+        /** Builds a session from parsed JSON fields; the id comes from the caller, not the client. */
+        public static TrainingSession fromJson(Map<String, String> f, int id) {
+            return create(id,
+                LocalDate.parse(JsonReader.required(f, "date")),
+                SessionType.valueOf(JsonReader.required(f, "type").toUpperCase()),
+                Integer.parseInt(JsonReader.required(f, "minutes")),
+                Integer.parseInt(JsonReader.required(f, "intensity")),
+                f.get("notes"));
+        }
+
         public static TrainingSession fromCsv(String line) {
-            var cols = CsvUtil.parse(line);
-            if (cols.size() < 6) throw new IllegalArgumentException("Bad session row: " + line);
+            return fromCsv(CsvReader.ofLine(line), 0);
+        }
+
+        /** Reads six columns starting at {@code first} of the reader's current record. */
+        public static TrainingSession fromCsv(CsvReader r, int first) {
+            if (r.fieldCount() < first + 6) throw new IllegalArgumentException("Bad session row: " + r);
             
             return new TrainingSession(
-                Integer.parseInt(cols.get(0)), java.time.LocalDate.parse(cols.get(1)),
-                SessionType.valueOf(cols.get(2)),
-                Integer.parseInt(cols.get(3)),
-                Integer.parseInt(cols.get(4)),
-                cols.get(5)
+                r.getInt(first), r.getDate(first + 1),
+                r.getEnum(first + 2, TYPES),
+                r.getInt(first + 3),
+                r.getInt(first + 4),
+                r.getString(first + 5)
             );
         }
         
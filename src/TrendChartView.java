@@ -0,0 +1,323 @@
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.chart.AreaChart;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.StackedAreaChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.util.StringConverter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Charts of daily load, minutes by SessionType or drill reps by DrillType over
+ * any date range. The daily values come from the tracker's cached per-day
+ * aggregates, never a scan of the sessions. Years of daily points would make a
+ * JavaFX chart crawl, so every series is downsampled with Lttb to about one
+ * point per pixel of plot width, again whenever the range or the width changes.
+ *
+ * Scroll to zoom around the cursor, drag to pan, double-click to go back to
+ * the picked dates.
+ */
+public class TrendChartView extends BorderPane {
+    private static final int MIN_SPAN_DAYS = 14;
+    private static final int MAX_SPAN_DAYS = 100 * 366;
+    private static final double ZOOM_STEP = 1.25;
+    // Used until the axis has been laid out and has a width.
+    private static final int DEFAULT_WIDTH = 800;
+
+    private static final StringConverter<Number> DATE_LABELS = new StringConverter<>() {
+        @Override
+        public String toString(Number epochDay) {
+            return LocalDate.ofEpochDay(Math.round(epochDay.doubleValue())).toString();
+        }
+
+        @Override
+        public Number fromString(String date) {
+            return LocalDate.parse(date).toEpochDay();
+        }
+    };
+
+    public enum Kind {
+        LOAD("Daily load"),
+        MINUTES_BY_TYPE("Minutes by session type"),
+        REPS_BY_DRILL("Drill reps by type");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private record Sampled(List<XYChart.Series<Number, Number>> series, int days, int points) {}
+
+    private final TrackerService tracker;
+    private final ExecutorService executor;
+
+    private final ComboBox<Kind> kindBox = new ComboBox<>(FXCollections.observableArrayList(Kind.values()));
+    private final DatePicker fromPicker = new DatePicker(LocalDate.now().minusYears(1));
+    private final DatePicker toPicker = new DatePicker(LocalDate.now());
+    private final Label status = new Label();
+
+    private XYChart<Number, Number> chart;
+    private NumberAxis xAxis;
+
+    // Epoch days shown, inclusive. Zooming and panning move these; the pickers reset them.
+    private long viewFrom;
+    private long viewTo;
+    private double dragX;
+    private long dragFrom;
+    private long dragTo;
+
+    // A newer resample cancels and replaces the running one.
+    private Task<Sampled> task;
+
+    private TrendChartView(TrackerService tracker, ExecutorService executor) {
+        this.tracker = tracker;
+        this.executor = executor;
+    }
+
+    /** Sampling runs on executor, off the FX thread. */
+    public static TrendChartView create(TrackerService tracker, ExecutorService executor) {
+        TrendChartView view = new TrendChartView(tracker, executor);
+        view.build();
+        return view;
+    }
+
+    // Separate from the constructor because the handlers capture this.
+    private void build() {
+        kindBox.getSelectionModel().select(Kind.LOAD);
+        kindBox.setOnAction(e -> {
+            showChart(kindBox.getValue());
+            resample();
+        });
+        fromPicker.setOnAction(e -> resetView());
+        toPicker.setOnAction(e -> resetView());
+
+        Button allBtn = new Button("All history");
+        allBtn.setOnAction(e -> {
+            LocalDate first = tracker.firstSessionDate().orElse(null);
+            LocalDate last = tracker.lastSessionDate().orElse(null);
+            if (first == null) {
+                status.setText("No sessions yet.");
+                return;
+            }
+            fromPicker.setValue(first);
+            toPicker.setValue(last);
+            resetView();
+        });
+
+        HBox controls = new HBox(8, kindBox, new Label("From"), fromPicker, new Label("To"), toPicker, allBtn);
+        controls.setAlignment(Pos.CENTER_LEFT);
+        setTop(controls);
+        setBottom(status);
+        setPadding(new Insets(10));
+        BorderPane.setMargin(status, new Insets(6, 0, 0, 0));
+
+        viewFrom = fromPicker.getValue().toEpochDay();
+        viewTo = toPicker.getValue().toEpochDay();
+        showChart(Kind.LOAD);
+    }
+
+    /** Re-reads the current range, e.g. after sessions were added or deleted. */
+    public void refresh() {
+        resample();
+    }
+
+    private void showChart(Kind kind) {
+        xAxis = new NumberAxis();
+        xAxis.setAutoRanging(false);
+        xAxis.setMinorTickVisible(false);
+        xAxis.setTickLabelFormatter(DATE_LABELS);
+        NumberAxis yAxis = new NumberAxis();
+        yAxis.setLabel(switch (kind) {
+            case LOAD -> "minutes * intensity";
+            case MINUTES_BY_TYPE -> "minutes";
+            case REPS_BY_DRILL -> "reps";
+        });
+
+        chart = switch (kind) {
+            case LOAD -> {
+                AreaChart<Number, Number> area = new AreaChart<>(xAxis, yAxis);
+                area.setCreateSymbols(false);
+                area.setLegendVisible(false);
+                yield area;
+            }
+            case MINUTES_BY_TYPE -> {
+                StackedAreaChart<Number, Number> stacked = new StackedAreaChart<>(xAxis, yAxis);
+                stacked.setCreateSymbols(false);
+                yield stacked;
+            }
+            case REPS_BY_DRILL -> {
+                LineChart<Number, Number> line = new LineChart<>(xAxis, yAxis);
+                line.setCreateSymbols(false);
+                yield line;
+            }
+        };
+        chart.setAnimated(false);
+        setAxisRange();
+
+        // Fires once the chart is laid out, and on every resize.
+        xAxis.widthProperty().addListener((obs, oldWidth, newWidth) -> resample());
+
+        chart.setOnScroll(e -> {
+            if (e.getDeltaY() == 0) return;
+            double factor = e.getDeltaY() > 0 ? 1 / ZOOM_STEP : ZOOM_STEP;
+            double center = xAxis.getValueForDisplay(xAxis.sceneToLocal(e.getSceneX(), e.getSceneY()).getX()).doubleValue();
+            long span = viewTo - viewFrom;
+            long newSpan = Math.max(MIN_SPAN_DAYS, Math.min(MAX_SPAN_DAYS, Math.round(span * factor)));
+            // Keep the day under the cursor where it is.
+            double leftShare = Math.max(0, Math.min(1, (center - viewFrom) / span));
+            long from = Math.round(center - newSpan * leftShare);
+            setView(from, from + newSpan);
+        });
+        chart.setOnMousePressed(e -> {
+            dragX = e.getX();
+            dragFrom = viewFrom;
+            dragTo = viewTo;
+        });
+        chart.setOnMouseDragged(e -> {
+            double daysPerPixel = (dragTo - dragFrom) / Math.max(1, xAxis.getWidth());
+            long shift = Math.round((dragX - e.getX()) * daysPerPixel);
+            setView(dragFrom + shift, dragTo + shift);
+        });
+        chart.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) resetView();
+        });
+
+        setCenter(chart);
+    }
+
+    private void resetView() {
+        LocalDate from = fromPicker.getValue();
+        LocalDate to = toPicker.getValue();
+        if (from == null || to == null || !from.isBefore(to)) {
+            status.setText("Pick a From date before the To date.");
+            return;
+        }
+        viewFrom = from.toEpochDay();
+        viewTo = Math.min(to.toEpochDay(), viewFrom + MAX_SPAN_DAYS);
+        resample();
+    }
+
+    private void setView(long from, long to) {
+        if (from == viewFrom && to == viewTo) return;
+        viewFrom = from;
+        viewTo = to;
+        resample();
+    }
+
+    private void setAxisRange() {
+        xAxis.setLowerBound(viewFrom);
+        xAxis.setUpperBound(viewTo);
+        xAxis.setTickUnit(Math.max(1, (viewTo - viewFrom) / 8.0));
+    }
+
+    private void resample() {
+        if (task != null) task.cancel();
+        // Move the axis straight away so zooming and panning feel immediate; the points follow.
+        setAxisRange();
+
+        Kind kind = kindBox.getValue();
+        long from = viewFrom;
+        long to = viewTo;
+        int width = xAxis.getWidth() > 0 ? (int) xAxis.getWidth() : DEFAULT_WIDTH;
+
+        Task<Sampled> sampling = new Task<>() {
+            @Override
+            protected Sampled call() {
+                TrackerEvents.UiRefresh event = new TrackerEvents.UiRefresh();
+                event.begin();
+                Sampled sampled = sample(kind, from, to, width);
+                event.view = "trends (background)";
+                event.rows = sampled.points();
+                event.commit();
+                return sampled;
+            }
+        };
+        sampling.setOnSucceeded(e -> {
+            if (task != sampling) return;
+            Sampled sampled = sampling.getValue();
+            TrackerEvents.UiRefresh event = new TrackerEvents.UiRefresh();
+            event.begin();
+            chart.getData().setAll(sampled.series());
+            event.view = "trends";
+            event.rows = sampled.points();
+            event.commit();
+            status.setText(String.format("%d days, %d points drawn. Scroll to zoom, drag to pan, double-click to reset.",
+                sampled.days(), sampled.points()));
+        });
+        sampling.setOnFailed(e -> {
+            if (task == sampling) status.setText("Couldn't load chart: " + sampling.getException().getMessage());
+        });
+
+        task = sampling;
+        executor.submit(sampling);
+    }
+
+    private Sampled sample(Kind kind, long from, long to, int width) {
+        LocalDate fromDate = LocalDate.ofEpochDay(from);
+        LocalDate toDate = LocalDate.ofEpochDay(to);
+        List<XYChart.Series<Number, Number>> out = new ArrayList<>();
+        switch (kind) {
+            case LOAD -> {
+                long[][] daily = tracker.getDailySeries(fromDate, toDate, DailyAggregates.LOAD);
+                out.add(series("Load", from, daily[0], Lttb.select(daily[0], width)));
+            }
+            case MINUTES_BY_TYPE -> {
+                SessionType[] types = SessionType.values();
+                int[] metrics = new int[types.length + 1];
+                metrics[0] = DailyAggregates.MINUTES;
+                for (int i = 0; i < types.length; i++) metrics[i + 1] = DailyAggregates.MINUTES_BY_TYPE + i;
+                long[][] daily = tracker.getDailySeries(fromDate, toDate, metrics);
+                // Stacked layers must share their days, so the days are picked on the total.
+                int[] keep = Lttb.select(daily[0], width);
+                for (int i = 0; i < types.length; i++) {
+                    if (anyNonZero(daily[i + 1])) out.add(series(types[i].name(), from, daily[i + 1], keep));
+                }
+            }
+            case REPS_BY_DRILL -> {
+                DrillType[] types = DrillType.values();
+                int[] metrics = new int[types.length];
+                for (int i = 0; i < types.length; i++) metrics[i] = DailyAggregates.REPS_BY_DRILL + i;
+                long[][] daily = tracker.getDailySeries(fromDate, toDate, metrics);
+                for (int i = 0; i < types.length; i++) {
+                    if (anyNonZero(daily[i])) out.add(series(types[i].name(), from, daily[i], Lttb.select(daily[i], width)));
+                }
+            }
+        }
+        int points = 0;
+        for (XYChart.Series<Number, Number> s : out) points += s.getData().size();
+        return new Sampled(out, (int) (to - from + 1), points);
+    }
+
+    private static XYChart.Series<Number, Number> series(String name, long fromDay, long[] daily, int[] keep) {
+        List<XYChart.Data<Number, Number>> data = new ArrayList<>(keep.length);
+        for (int i : keep) data.add(new XYChart.Data<>(fromDay + i, daily[i]));
+        return new XYChart.Series<>(name, FXCollections.observableArrayList(data));
+    }
+
+    private static boolean anyNonZero(long[] values) {
+        for (long v : values) {
+            if (v != 0) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,156 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Daily training load (minutes * intensity) for the acute:chronic workload
+ * ratio. Alongside each day's load it keeps the 7-day acute and 28-day chronic
+ * rolling sums ending on that day, so a change to one day's load touches that
+ * day and the rolling sums of the 27 days after it: O(1) per add, edit or
+ * delete, and the series is never recomputed. Like DailyAggregates, after a
+ * clear or resize the sums are only rebuilt by refresh(), so a bulk load stays
+ * O(days).
+ *
+ * The EWMA loads are derived when read, by running the recurrence over the
+ * asked range, starting EWMA_WARMUP days earlier; loads older than that weigh
+ * under 0.1% of the chronic EWMA.
+ */
+public class WorkloadSeries {
+    public static final int ACUTE_DAYS = 7;
+    public static final int CHRONIC_DAYS = 28;
+    /** Ratios above this are flagged as a spike; the usual "danger zone". */
+    public static final double SPIKE_RATIO = 1.5;
+
+    private static final double ACUTE_LAMBDA = 2.0 / (ACUTE_DAYS + 1);
+    private static final double CHRONIC_LAMBDA = 2.0 / (CHRONIC_DAYS + 1);
+    private static final int EWMA_WARMUP = 100;
+    // Same backstop as DailyAggregates: TrackerService keeps typo'd dates from getting here.
+    private static final long MAX_SPAN_DAYS = 1 << 16;
+
+    private long baseDay;
+    private int capacity;
+    // The days covered on request, so the span check ignores resize headroom.
+    private long lowDay;
+    private long highDay;
+    private long[] load = new long[0];
+    private long[] acute = new long[0];
+    private long[] chronic = new long[0];
+    private boolean stale = true;
+
+    /**
+     * One day of the series. Loads are totals over the window; the ratios
+     * compare average daily load, acute over chronic, and are 0 with no chronic load.
+     */
+    public record Day(LocalDate date, long load, long acute, long chronic, double acwr,
+                      double ewmaAcute, double ewmaChronic, double ewmaAcwr) {
+        public boolean spike() {
+            return acwr > SPIKE_RATIO || ewmaAcwr > SPIKE_RATIO;
+        }
+    }
+
+    public void clear() {
+        baseDay = 0;
+        capacity = 0;
+        load = new long[0];
+        acute = new long[0];
+        chronic = new long[0];
+        stale = true;
+    }
+
+    /** Adds delta to a day's load, e.g. minutes * intensity, negated to take a session away. */
+    public void add(long epochDay, long delta) {
+        if (delta == 0) return;
+        ensureCovers(epochDay, epochDay + CHRONIC_DAYS - 1);
+        int idx = (int) (epochDay - baseDay);
+        load[idx] += delta;
+        if (stale) return;
+        for (int i = idx; i < idx + ACUTE_DAYS; i++) acute[i] += delta;
+        for (int i = idx; i < idx + CHRONIC_DAYS; i++) chronic[i] += delta;
+    }
+
+    /** Rebuilds the rolling sums if a clear or resize left them stale. Call after updates, before reading. */
+    public void refresh() {
+        if (!stale) return;
+        acute = rollingSums(ACUTE_DAYS);
+        chronic = rollingSums(CHRONIC_DAYS);
+        stale = false;
+    }
+
+    private long[] rollingSums(int days) {
+        long[] out = new long[capacity];
+        long window = 0;
+        for (int i = 0; i < capacity; i++) {
+            window += load[i];
+            if (i >= days) window -= load[i - days];
+            out[i] = window;
+        }
+        return out;
+    }
+
+    /** Every day from..to inclusive, oldest first. */
+    public List<Day> days(LocalDate from, LocalDate to) {
+        if (stale) throw new IllegalStateException("Workload read before refresh()");
+        List<Day> out = new ArrayList<>();
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        if (first > last) return out;
+
+        double ewmaAcute = 0;
+        double ewmaChronic = 0;
+        for (long day = first - EWMA_WARMUP; day <= last; day++) {
+            long dayLoad = value(load, day);
+            ewmaAcute = ACUTE_LAMBDA * dayLoad + (1 - ACUTE_LAMBDA) * ewmaAcute;
+            ewmaChronic = CHRONIC_LAMBDA * dayLoad + (1 - CHRONIC_LAMBDA) * ewmaChronic;
+            if (day < first) continue;
+            long acuteSum = value(acute, day);
+            long chronicSum = value(chronic, day);
+            out.add(new Day(LocalDate.ofEpochDay(day), dayLoad, acuteSum, chronicSum,
+                ratio(acuteSum / (double) ACUTE_DAYS, chronicSum / (double) CHRONIC_DAYS),
+                ewmaAcute, ewmaChronic, ratio(ewmaAcute, ewmaChronic)));
+        }
+        return out;
+    }
+
+    private static double ratio(double acute, double chronic) {
+        return chronic <= 0 ? 0 : acute / chronic;
+    }
+
+    private long value(long[] series, long epochDay) {
+        if (epochDay < baseDay || epochDay >= baseDay + capacity) return 0;
+        return series[(int) (epochDay - baseDay)];
+    }
+
+    /** Approximate heap bytes of the three arrays. */
+    public long footprintBytes() {
+        return ((long) load.length + acute.length + chronic.length) * 8;
+    }
+
+    private void ensureCovers(long fromDay, long toDay) {
+        long lo = capacity == 0 ? fromDay : Math.min(lowDay, fromDay);
+        long hi = capacity == 0 ? toDay : Math.max(highDay, toDay);
+        if (capacity > 0 && fromDay >= baseDay && toDay < baseDay + capacity) {
+            lowDay = lo;
+            highDay = hi;
+            return;
+        }
+
+        long span = hi - lo + 1;
+        if (span > MAX_SPAN_DAYS) {
+            throw new IllegalArgumentException("Day " + fromDay + " is too far from the other dates to track workload");
+        }
+        int newCapacity = Math.max(64, Integer.highestOneBit((int) (span * 2)) << 1);
+        // Same headroom on both sides as DailyAggregates.
+        long newBase = lo - (newCapacity - span) / 2;
+
+        long[] grown = new long[newCapacity];
+        if (capacity > 0) {
+            System.arraycopy(load, (int) (lowDay - baseDay), grown, (int) (lowDay - newBase), (int) (highDay - lowDay + 1));
+        }
+        load = grown;
+        baseDay = newBase;
+        lowDay = lo;
+        highDay = hi;
+        capacity = newCapacity;
+        stale = true;
+    }
+}